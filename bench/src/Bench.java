@@ -0,0 +1,124 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * A small microbenchmark harness. Each benchmark runs for a number of timed warmup iterations,
+ * which are discarded, and then for a number of timed measurement iterations. The harness
+ * reports the mean throughput in operations per second with the spread between iterations,
+ * and the bytes allocated by the benchmarking thread per operation, as counted by the JVM.
+ * Every operation returns a value that is folded into a field the JIT cannot see through,
+ * so the work of the operation cannot be optimized away.
+ */
+public final class Bench {
+  private static final com.sun.management.ThreadMXBean THREADS =
+          (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static volatile long sink;
+
+  private final int warmupIterations;
+  private final int measureIterations;
+  private final long iterationNanos;
+  private final Appendable out;
+
+  /**
+   * An operation to benchmark.
+   */
+  public interface Op {
+    /**
+     * Runs the operation once.
+     *
+     * @return any value computed by the operation, so it is not optimized away
+     * @throws Exception if the operation fails
+     */
+    long run() throws Exception;
+  }
+
+  /**
+   * Constructs a harness.
+   *
+   * @param warmupIterations  the number of iterations to discard
+   * @param measureIterations the number of iterations to measure
+   * @param iterationMillis   the length of each iteration in milliseconds
+   * @param out               where to write the results
+   */
+  public Bench(int warmupIterations, int measureIterations, long iterationMillis,
+               Appendable out) {
+    this.warmupIterations = warmupIterations;
+    this.measureIterations = measureIterations;
+    this.iterationNanos = iterationMillis * 1_000_000L;
+    this.out = out;
+  }
+
+  /**
+   * Writes the header of the results table.
+   *
+   * @throws Exception if the header cannot be written
+   */
+  public void printHeader() throws Exception {
+    out.append(String.format("%-32s %-12s %14s %10s %12s%n", "Benchmark", "Config", "ops/s",
+            "error %", "B/op"));
+  }
+
+  /**
+   * Benchmarks an operation and writes one line of results.
+   *
+   * @param name   the name of the benchmark
+   * @param config the configuration the benchmark runs on
+   * @param op     the operation to benchmark
+   * @throws Exception if the operation fails or the results cannot be written
+   */
+  public void run(String name, String config, Op op) throws Exception {
+    for (int i = 0; i < warmupIterations; i++) {
+      iterate(op);
+    }
+    double[] rates = new double[measureIterations];
+    long totalOps = 0;
+    long totalBytes = 0;
+    for (int i = 0; i < measureIterations; i++) {
+      long bytes = allocatedBytes();
+      long start = System.nanoTime();
+      long ops = iterate(op);
+      long elapsed = System.nanoTime() - start;
+      totalBytes += allocatedBytes() - bytes;
+      totalOps += ops;
+      rates[i] = ops * 1e9 / elapsed;
+    }
+
+    double mean = Arrays.stream(rates).average().orElse(0);
+    double variance = Arrays.stream(rates).map(r -> (r - mean) * (r - mean)).sum()
+            / Math.max(1, rates.length - 1);
+    out.append(String.format("%-32s %-12s %14.1f %10.1f %12.1f%n", name, config, mean,
+            mean == 0 ? 0 : 100 * Math.sqrt(variance) / mean, (double) totalBytes / totalOps));
+  }
+
+  /**
+   * Runs the operation in growing batches until the iteration time is used up.
+   *
+   * @return the number of operations run
+   */
+  private long iterate(Op op) throws Exception {
+    long deadline = System.nanoTime() + iterationNanos;
+    long ops = 0;
+    long result = 0;
+    int batch = 1;
+    long now = System.nanoTime();
+    do {
+      long batchStart = now;
+      for (int i = 0; i < batch; i++) {
+        result += op.run();
+      }
+      ops += batch;
+      now = System.nanoTime();
+      // keep the clock reads rare for fast operations without overrunning for slow ones
+      if (now - batchStart < iterationNanos / 100) {
+        batch <<= 1;
+      }
+    } while (now < deadline);
+    sink += result;
+    return ops;
+  }
+
+  private static long allocatedBytes() {
+    return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,310 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the hot paths of the game engine: playing a turn, the battle phase,
+ * counting flips, generating and ordering moves, the flip-most strategy, deciding the winner,
+ * checking for the end of the game, loading configuration files with FileReader,
+ * MappedFileReader and BinaryConfig, and rendering a text frame.
+ * Every benchmark runs on the bundled 5x5 configuration and on a generated large grid with
+ * holes, in a half-played position reached by a seeded sequence of random moves.
+ *
+ * <p>Usage: EngineBenchmarks [--quick] [regex]. The regex selects benchmarks by name, and
+ * --quick runs shorter iterations for a fast smoke check.
+ */
+public final class EngineBenchmarks {
+  private static final long SEED = 20241018L;
+
+  private EngineBenchmarks() {
+  }
+
+  /**
+   * Runs the benchmarks and prints the results.
+   *
+   * @param args the command-line arguments
+   * @throws Exception if a benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    boolean quick = false;
+    Pattern filter = Pattern.compile(".*");
+    for (String arg : args) {
+      if (arg.equals("--quick")) {
+        quick = true;
+      } else {
+        filter = Pattern.compile(arg);
+      }
+    }
+    Bench bench = quick ? new Bench(2, 3, 100, System.out) : new Bench(5, 5, 1000, System.out);
+
+    File dir = new File(System.getProperty("java.io.tmpdir"), "three-trios-bench");
+    dir.mkdirs();
+    String[][] configs = {
+        {"bundled", "src/files/grid_no_holes.txt", "src/files/cards.txt"},
+        {"gen-31x31", writeGrid(new File(dir, "grid31.txt"), 31),
+            writeDeck(new File(dir, "cards31.txt"), 31 * 31 + 1)},
+    };
+
+    bench.printHeader();
+    for (String[] config : configs) {
+      runAll(bench, filter, config[0], config[1], config[2]);
+    }
+  }
+
+  private static void runAll(Bench bench, Pattern filter, String name, String gridPath,
+                             String cardPath) throws Exception {
+    Grid grid = FileReader.loadGrid(gridPath);
+    Game game = halfPlayedGame(grid, cardPath);
+    int[] dims = game.getGridDimensions();
+    int target = firstEmptyCell(game);
+    int targetRow = target / dims[1];
+    int targetCol = target % dims[1];
+
+    if (filter.matcher("playTurn").matches()) {
+      // playTurn records its move on the undo stack, so unmakeMove restores the position
+      bench.run("playTurn", name, () -> {
+        game.playTurn(targetRow, targetCol, game.getCurrentPlayer().getCardAt(0));
+        game.unmakeMove();
+        return game.getPositionKey();
+      });
+    }
+
+    if (filter.matcher("battlePhase").matches()) {
+      Game battle = battleGame(gridPath, cardPath);
+      int[] battleDims = battle.getGridDimensions();
+      int row = battleDims[0] / 2;
+      int col = battleDims[1] / 2;
+      bench.run("battlePhase", name, () -> {
+        battle.playTurn(row, col, battle.getCurrentPlayer().getCardAt(0));
+        battle.unmakeMove();
+        return battle.getPositionKey();
+      });
+    }
+
+    if (filter.matcher("getFlipCount").matches()) {
+      bench.run("getFlipCount", name, () -> {
+        int hand = game.getCurrentPlayer().getHandSize();
+        long flips = 0;
+        for (int slot = 0; slot < hand; slot++) {
+          flips += game.getFlipCount(slot, targetRow, targetCol);
+        }
+        return flips;
+      });
+    }
+
+    if (filter.matcher("generateMoves").matches()) {
+      int[] moves = new int[game.getMoveCount()];
+      bench.run("generateMoves", name, () -> {
+        int count = game.generateMoves(moves);
+        game.orderByFlipGain(moves, count, -1);
+        return moves[0];
+      });
+    }
+
+    if (filter.matcher("flipMost").matches()) {
+      ThreeTriosStrategy strategy = new ThreeTriosStrategyImpl();
+      bench.run("flipMost", name, () -> {
+        strategy.flipMost(game.getCurrentPlayer().getColor(), game);
+        game.unmakeMove();
+        return game.getPositionKey();
+      });
+    }
+
+    if (filter.matcher("checkWinner").matches()) {
+      Player red = game.getCurrentPlayer();
+      game.makeMove(targetRow, targetCol, 0);
+      Player blue = game.getCurrentPlayer();
+      game.unmakeMove();
+      bench.run("checkWinner", name, () ->
+              System.identityHashCode(Game.checkWinner(grid, red, blue)));
+    }
+
+    if (filter.matcher("isGameOver").matches()) {
+      bench.run("isGameOver", name, () -> game.isGameOver() ? 1 : 0);
+    }
+
+    if (filter.matcher("loadGrid").matches()) {
+      bench.run("loadGrid", name, () -> FileReader.loadGrid(gridPath).getRows());
+    }
+
+    if (filter.matcher("loadCards").matches()) {
+      bench.run("loadCards", name, () -> FileReader.loadCards(cardPath).size());
+    }
+
+    if (filter.matcher("mappedLoadGrid").matches()) {
+      bench.run("mappedLoadGrid", name, () -> MappedFileReader.loadGrid(gridPath).getRows());
+    }
+
+    if (filter.matcher("mappedLoadCards").matches()) {
+      bench.run("mappedLoadCards", name, () -> MappedFileReader.loadCards(cardPath).size());
+    }
+
+    if (filter.matcher("binaryLoadGrid").matches()) {
+      String binaryPath = File.createTempFile("grid", ".bin").getPath();
+      BinaryConfig.convertGrid(gridPath, binaryPath);
+      bench.run("binaryLoadGrid", name, () -> BinaryConfig.loadGrid(binaryPath).getRows());
+    }
+
+    if (filter.matcher("binaryLoadCards").matches()) {
+      String binaryPath = File.createTempFile("cards", ".bin").getPath();
+      BinaryConfig.convertCards(cardPath, binaryPath);
+      bench.run("binaryLoadCards", name, () -> BinaryConfig.loadCards(binaryPath).size());
+    }
+
+    if (filter.matcher("textRender").matches()) {
+      TextView view = new TextView(java.io.Writer.nullWriter());
+      bench.run("textRender", name, () -> {
+        view.render(grid, game.getCurrentPlayer());
+        return 0;
+      });
+    }
+
+    if (filter.matcher("textRenderDiff").matches()) {
+      TextView view = new TextView(java.io.Writer.nullWriter(), true);
+      bench.run("textRenderDiff", name, () -> {
+        view.render(grid, game.getCurrentPlayer());
+        return 0;
+      });
+    }
+
+    if (filter.matcher("mappedForEachCard").matches()) {
+      long[] sum = new long[1];
+      bench.run("mappedForEachCard", name, () -> {
+        MappedFileReader.forEachCard(cardPath, (cardName, attacks, line) -> sum[0] += attacks);
+        return sum[0];
+      });
+    }
+  }
+
+  /**
+   * Deals the deck and plays random moves until half of the card cells are filled.
+   */
+  private static Game halfPlayedGame(Grid grid, String cardPath) throws IOException {
+    Game game = newGame(grid, cardPath);
+    Random random = new Random(SEED);
+    int[] dims = game.getGridDimensions();
+    int moves = grid.getEmptyCardCellCount() / 2;
+    for (int i = 0; i < moves; i++) {
+      List<Integer> empty = emptyCells(game);
+      int cell = empty.get(random.nextInt(empty.size()));
+      game.makeMove(cell / dims[1], cell % dims[1],
+              random.nextInt(game.getCurrentPlayer().getHandSize()));
+    }
+    return game;
+  }
+
+  /**
+   * Sets up a position where the next card, played in the middle of the grid, beats all of its
+   * neighbors: the neighbors are the weakest cards of the deck and belong to the opponent, and
+   * the card played is the strongest.
+   */
+  private static Game battleGame(String gridPath, String cardPath) throws IOException {
+    Grid grid = FileReader.loadGrid(gridPath);
+    List<Card> deck = new ArrayList<>(FileReader.loadCards(cardPath));
+    deck.sort((a, b) -> Integer.compare(strength(a), strength(b)));
+    Player red = new Player("Red");
+    Player blue = new Player("Blue");
+    red.addCardToHand(deck.get(deck.size() - 1));
+    int row = grid.getRows() / 2;
+    int col = grid.getCols() / 2;
+    int[][] offsets = {{-1, 0}, {1, 0}, {0, 1}, {0, -1}};
+    for (int i = 0; i < offsets.length; i++) {
+      Cell cell = grid.getCell(row + offsets[i][0], col + offsets[i][1]);
+      if (cell.isCardCell()) {
+        cell.placeCard(deck.get(i), blue);
+      }
+    }
+    return new Game(grid, red, blue);
+  }
+
+  private static int strength(Card card) {
+    int sum = 0;
+    for (Direction direction : Direction.values()) {
+      sum += Card.attack(card.getPackedAttacks(), direction.ordinal());
+    }
+    return sum;
+  }
+
+  private static Game newGame(Grid grid, String cardPath) throws IOException {
+    List<Card> deck = new ArrayList<>(FileReader.loadCards(cardPath));
+    Collections.shuffle(deck, new Random(SEED));
+    int hand = (grid.getEmptyCardCellCount() + 1) / 2;
+    Player red = new Player("Red");
+    Player blue = new Player("Blue");
+    red.setHand(deck.subList(0, hand));
+    blue.setHand(deck.subList(hand, 2 * hand));
+    return new Game(grid, red, blue);
+  }
+
+  private static List<Integer> emptyCells(Game game) {
+    int[] dims = game.getGridDimensions();
+    List<Integer> empty = new ArrayList<>();
+    for (int row = 0; row < dims[0]; row++) {
+      for (int col = 0; col < dims[1]; col++) {
+        Cell cell = game.getCellContents(row, col);
+        if (cell.isCardCell() && cell.isEmpty()) {
+          empty.add(row * dims[1] + col);
+        }
+      }
+    }
+    return empty;
+  }
+
+  private static int firstEmptyCell(Game game) {
+    return emptyCells(game).get(0);
+  }
+
+  /**
+   * Writes a square grid file with a scattering of holes. The middle cell and its neighbors
+   * are always card cells, and one more hole is added if needed to keep the number of card
+   * cells odd.
+   */
+  private static String writeGrid(File file, int size) throws IOException {
+    Random random = new Random(SEED);
+    char[][] cells = new char[size][size];
+    int cards = 0;
+    int mid = size / 2;
+    for (int row = 0; row < size; row++) {
+      for (int col = 0; col < size; col++) {
+        boolean nearMiddle = Math.abs(row - mid) + Math.abs(col - mid) <= 1;
+        cells[row][col] = nearMiddle || random.nextInt(8) != 0 ? 'C' : 'X';
+        if (cells[row][col] == 'C') {
+          cards++;
+        }
+      }
+    }
+    if (cards % 2 == 0) {
+      cells[0][0] = cells[0][0] == 'C' ? 'X' : 'C';
+    }
+    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+      writer.println(size + " " + size);
+      for (char[] row : cells) {
+        writer.println(new String(row));
+      }
+    }
+    return file.getPath();
+  }
+
+  /**
+   * Writes a deck file with the given number of cards with random attack values.
+   */
+  private static String writeDeck(File file, int count) throws IOException {
+    Random random = new Random(SEED);
+    String values = "123456789A";
+    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+      for (int i = 0; i < count; i++) {
+        writer.print("Card" + i);
+        for (int d = 0; d < 4; d++) {
+          writer.print(" " + values.charAt(random.nextInt(values.length())));
+        }
+        writer.println();
+      }
+    }
+    return file.getPath();
+  }
+}
@@ -0,0 +1,474 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A strategy that looks ahead a fixed number of moves using negamax search with alpha-beta
+ * pruning. Positions are cached in a {@link TranspositionTable} keyed by the game's incremental
+ * Zobrist key, and moves are tried best-first: the cached best move, then by how many cards
+ * they flip. A position is scored as the current player's score minus the opponent's score.
+ * The search plays and takes back moves on the game it is given, so the game is left unchanged
+ * apart from the chosen move.
+ *
+ * <p>Given a ForkJoinPool, the strategy splits the moves at the root across the pool's workers.
+ * Each worker searches its own copy of the game with its own table, and the best score found
+ * so far is shared through an atomic so workers can prune against it. Ties go to the move that
+ * comes first in move order, exactly as in the sequential search, so both modes choose the same
+ * move with the same score.
+ *
+ * <p>A search can also be given a deadline, as {@link DeadlineStrategy} does for iterative
+ * deepening. Every worker then reads the clock once every {@value #NODES_PER_CLOCK_CHECK} nodes
+ * and, once the deadline has passed, unwinds without storing anything more in its table.
+ * The game is restored on the way out and the unfinished search reports no move.
+ */
+public class AlphaBetaStrategy implements ThreeTriosStrategy {
+    static final int INFINITY = 1_000_000;
+    static final int NODES_PER_CLOCK_CHECK = 1024;
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+    private static final long NO_MOVE = Long.MIN_VALUE;
+
+    private final int depth;
+    private final ForkJoinPool pool;
+    private final Searcher[] searchers;
+    private long nodes;
+    private long elapsedNanos;
+    private int bestScore;
+    private int firstRootMove;
+
+    /**
+     * Creates a strategy searching the given number of moves ahead with a table of 2^20 entries.
+     *
+     * @param depth the number of moves to look ahead, at least 1
+     */
+    public AlphaBetaStrategy(int depth) {
+        this(depth, 1 << 20);
+    }
+
+    /**
+     * Creates a strategy searching the given number of moves ahead on the calling thread.
+     *
+     * @param depth     the number of moves to look ahead, at least 1
+     * @param tableSize the number of transposition table entries
+     * @throws IllegalArgumentException if depth is less than 1
+     */
+    public AlphaBetaStrategy(int depth, int tableSize) {
+        this(depth, tableSize, null);
+    }
+
+    /**
+     * Creates a strategy searching the given number of moves ahead, splitting the root moves
+     * across the workers of the given pool. Each worker gets its own table of the given size.
+     *
+     * @param depth     the number of moves to look ahead, at least 1
+     * @param tableSize the number of transposition table entries per worker
+     * @param pool      the pool to search in, or null to search on the calling thread
+     * @throws IllegalArgumentException if depth is less than 1
+     */
+    public AlphaBetaStrategy(int depth, int tableSize, ForkJoinPool pool) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Search depth must be at least 1.");
+        }
+        this.depth = depth;
+        this.pool = pool;
+        this.searchers = new Searcher[pool == null ? 1 : pool.getParallelism() + 1];
+        for (int i = 0; i < searchers.length; i++) {
+            searchers[i] = new Searcher(tableSize, depth);
+        }
+    }
+
+    /**
+     * makes the best move found by the search
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void flipMost(String color, Game game) {
+        playMove(color, game);
+    }
+
+    /**
+     * makes the best move found by the search among moves into the corners of the grid,
+     * or among all moves if every corner is taken
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void bestCorner(String color, Game game) {
+        play(color, game, true);
+    }
+
+    @Override
+    public void playMove(String color, Game game) {
+        play(color, game, false);
+    }
+
+    /**
+     * Searches the current position and returns the best move without playing it.
+     *
+     * @param color the color of the player to move
+     * @param game  the game to search
+     * @return the best move, encoded as by {@link Game#encodeMove(int, int)}
+     * @throws IllegalArgumentException if it is not the given player's turn or the game is over
+     */
+    public int findBestMove(String color, Game game) {
+        return search(color, game, false);
+    }
+
+    /**
+     * Returns the number of positions visited by the last search, summed over all workers.
+     *
+     * @return the node count of the last search
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns how long the last search took.
+     *
+     * @return the duration of the last search in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the search speed of the last search.
+     *
+     * @return positions visited per second during the last search
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the score of the move chosen by the last search, from the mover's point of view.
+     *
+     * @return the score of the last best move
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Returns how many moves ahead this strategy searches.
+     *
+     * @return the search depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    private void play(String color, Game game, boolean cornersOnly) {
+        int move = search(color, game, cornersOnly);
+        int cols = game.getGridDimensions()[1];
+        int cell = Game.moveCell(move);
+        game.playTurn(cell / cols, cell % cols,
+                game.getCurrentPlayer().getCardInSlot(Game.moveSlot(move)));
+    }
+
+    private int search(String color, Game game, boolean cornersOnly) {
+        return search(color, game, cornersOnly, depth, NO_DEADLINE, -1, true);
+    }
+
+    /**
+     * Searches the current position to the given depth, stopping early if the deadline passes.
+     *
+     * @param color       the color of the player to move
+     * @param game        the game to search
+     * @param cornersOnly whether to only consider moves into the corners, if there are any
+     * @param depth       the number of moves to look ahead, at least 1
+     * @param deadline    the System.nanoTime value to stop at, or {@link #NO_DEADLINE}
+     * @param firstMove   a move to search first at the root, or -1
+     * @param newSearch   whether to forget the positions cached by earlier searches; iterative
+     *                    deepening keeps them between iterations for their best moves
+     * @return the best move, or -1 if the deadline passed before the search finished
+     * @throws IllegalArgumentException if it is not the given player's turn or the game is over
+     */
+    int search(String color, Game game, boolean cornersOnly, int depth, long deadline,
+               int firstMove, boolean newSearch) {
+        if (!game.getCurrentPlayer().getColor().equalsIgnoreCase(color)) {
+            throw new IllegalArgumentException("It is not " + color + "'s turn.");
+        }
+        long start = System.nanoTime();
+        for (Searcher searcher : searchers) {
+            searcher.deadline = deadline;
+            searcher.aborted = false;
+        }
+        Searcher root = searchers[0];
+        root.reset(game, newSearch);
+
+        int count = root.generateMoves(game, 0, cornersOnly);
+        if (count == 0 && cornersOnly) {
+            count = root.generateMoves(game, 0, false);
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("The game is over.");
+        }
+        root.orderMoves(game, 0, count, firstMove);
+        int[] moves = Arrays.copyOf(root.moveLists[0], count);
+        firstRootMove = moves[0];
+
+        long best = pool == null
+                ? searchSequential(game, moves, depth)
+                : searchParallel(game, moves, depth, newSearch);
+        nodes = 1;
+        for (Searcher searcher : searchers) {
+            nodes += searcher.nodes;
+        }
+        elapsedNanos = System.nanoTime() - start;
+        if (best == NO_MOVE) {
+            return -1;
+        }
+        bestScore = (int) (best >> 32);
+        return moves[(int) (0xFFFFFFFFL - (best & 0xFFFFFFFFL))];
+    }
+
+    /**
+     * Returns the move the last search tried first at the root: the given first move, or else
+     * the one that flips the most cards. It is a reasonable move even when the search did not
+     * finish.
+     *
+     * @return the first root move of the last search
+     */
+    int getFirstRootMove() {
+        return firstRootMove;
+    }
+
+    /**
+     * Searches the root moves one after another on the calling thread.
+     *
+     * @return the best score and move index, packed as by {@link #pack(int, int)}, or NO_MOVE if
+     *         the deadline passed
+     */
+    private long searchSequential(Game game, int[] moves, int depth) {
+        Searcher searcher = searchers[0];
+        int alpha = -INFINITY;
+        int bestIndex = 0;
+        for (int i = 0; i < moves.length; i++) {
+            int score = -searcher.searchMove(game, moves[i], depth - 1, -INFINITY, -alpha, 1);
+            if (searcher.aborted) {
+                return NO_MOVE;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestIndex = i;
+            }
+        }
+        return pack(alpha, bestIndex);
+    }
+
+    /**
+     * Searches the root moves on the pool. Each worker takes the next unsearched root move until
+     * none are left, searching with an alpha just low enough that a move can only become the
+     * best if the sequential search would also have chosen it.
+     *
+     * @return the best score and move index, packed as by {@link #pack(int, int)}, or NO_MOVE if
+     *         the deadline passed
+     */
+    private long searchParallel(Game game, int[] moves, int depth, boolean newSearch) {
+        AtomicLong best = new AtomicLong(NO_MOVE);
+        AtomicInteger next = new AtomicInteger();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[searchers.length - 1];
+        for (int w = 0; w < tasks.length; w++) {
+            Searcher searcher = searchers[w + 1];
+            Game copy = game.copy();
+            tasks[w] = pool.submit(() -> {
+                searcher.reset(copy, newSearch);
+                for (int i = next.getAndIncrement(); i < moves.length && !searcher.aborted;
+                        i = next.getAndIncrement()) {
+                    long current = best.get();
+                    int alpha;
+                    if (current == NO_MOVE) {
+                        alpha = -INFINITY;
+                    } else {
+                        int currentScore = (int) (current >> 32);
+                        int currentIndex = (int) (0xFFFFFFFFL - (current & 0xFFFFFFFFL));
+                        alpha = currentIndex < i ? currentScore : currentScore - 1;
+                    }
+                    int score = -searcher.searchMove(copy, moves[i], depth - 1,
+                            -INFINITY, -alpha, 1);
+                    if (!searcher.aborted && score > alpha) {
+                        long candidate = pack(score, i);
+                        best.accumulateAndGet(candidate, Math::max);
+                    }
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        for (int w = 1; w < searchers.length; w++) {
+            if (searchers[w].aborted) {
+                return NO_MOVE;
+            }
+        }
+        return best.get();
+    }
+
+    /**
+     * Packs a root score and move index into a long that orders results the way the sequential
+     * search prefers them: by higher score, then by lower index.
+     */
+    private static long pack(int score, int index) {
+        return (long) score << 32 | (0xFFFFFFFFL - index);
+    }
+
+    /**
+     * Scores a position as the current player's score minus the opponent's.
+     */
+    private static int evaluate(Game game) {
+        int margin = game.getMargin();
+        return game.getCurrentPlayer().getColor().equalsIgnoreCase("Red") ? margin : -margin;
+    }
+
+    /**
+     * The state of one search thread: its transposition table, move buffers, node count and
+     * deadline.
+     */
+    private static class Searcher {
+        private final TranspositionTable table;
+        private int[][] moveLists;
+        private int cols;
+        private long nodes;
+        private long deadline = NO_DEADLINE;
+        private boolean aborted;
+
+        Searcher(int tableSize, int depth) {
+            this.table = new TranspositionTable(tableSize);
+            this.moveLists = new int[depth + 1][0];
+        }
+
+        /**
+         * Prepares for a new search of the given game, keeping the table's entries if asked to.
+         */
+        void reset(Game game, boolean newSearch) {
+            cols = game.getGridDimensions()[1];
+            nodes = 0;
+            if (newSearch) {
+                table.newSearch();
+            }
+        }
+
+        /**
+         * Plays a move, searches the resulting position and takes the move back.
+         */
+        int searchMove(Game game, int move, int remaining, int alpha, int beta, int ply) {
+            game.makeMove(move);
+            int score = negamax(game, remaining, alpha, beta, ply);
+            game.unmakeMove();
+            return score;
+        }
+
+        private int negamax(Game game, int remaining, int alpha, int beta, int ply) {
+            nodes++;
+            if ((nodes & (NODES_PER_CLOCK_CHECK - 1)) == 0 && deadline != NO_DEADLINE
+                    && System.nanoTime() - deadline >= 0) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (remaining == 0 || game.isGameOver()) {
+                return evaluate(game);
+            }
+
+            long key = game.getPositionKey();
+            int alphaOrig = alpha;
+            int hashMove = -1;
+            int slot = table.probe(key);
+            if (slot >= 0) {
+                hashMove = table.getMove(slot);
+                if (table.getDepth(slot) >= remaining) {
+                    int stored = table.getScore(slot);
+                    int flag = table.getFlag(slot);
+                    if (flag == TranspositionTable.EXACT) {
+                        return stored;
+                    } else if (flag == TranspositionTable.LOWER) {
+                        alpha = Math.max(alpha, stored);
+                    } else {
+                        beta = Math.min(beta, stored);
+                    }
+                    if (alpha >= beta) {
+                        return stored;
+                    }
+                }
+            }
+
+            int count = generateMoves(game, ply, false);
+            orderMoves(game, ply, count, hashMove);
+            int[] moves = moveLists[ply];
+            int best = -INFINITY;
+            int bestMove = -1;
+            for (int i = 0; i < count; i++) {
+                int score = -searchMove(game, moves[i], remaining - 1, -beta, -alpha, ply + 1);
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = moves[i];
+                }
+                if (best > alpha) {
+                    alpha = best;
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+
+            int flag;
+            if (best <= alphaOrig) {
+                flag = TranspositionTable.UPPER;
+            } else if (best >= beta) {
+                flag = TranspositionTable.LOWER;
+            } else {
+                flag = TranspositionTable.EXACT;
+            }
+            table.store(key, remaining, flag, best, bestMove);
+            return best;
+        }
+
+        /**
+         * Fills the move list for the given ply with every legal move, or only moves into the
+         * corners of the grid, and returns how many there are.
+         */
+        int generateMoves(Game game, int ply, boolean cornersOnly) {
+            ensureCapacity(ply, game.getMoveCount());
+            int[] moves = moveLists[ply];
+            int count = game.generateMoves(moves);
+            if (cornersOnly) {
+                int[] dims = game.getGridDimensions();
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    int cell = Game.moveCell(moves[i]);
+                    int row = cell / cols;
+                    int col = cell % cols;
+                    if ((row == 0 || row == dims[0] - 1) && (col == 0 || col == dims[1] - 1)) {
+                        moves[kept++] = moves[i];
+                    }
+                }
+                count = kept;
+            }
+            return count;
+        }
+
+        /**
+         * Sorts the move list for the given ply so the hash move comes first, followed by the
+         * other moves from most to fewest flips. Moves with equal flips keep their order.
+         */
+        void orderMoves(Game game, int ply, int count, int hashMove) {
+            game.orderByFlipGain(moveLists[ply], count, hashMove);
+        }
+
+        private void ensureCapacity(int ply, int size) {
+            if (ply >= moveLists.length) {
+                moveLists = Arrays.copyOf(moveLists, ply + 1);
+            }
+            if (moveLists[ply] == null || moveLists[ply].length < size) {
+                moveLists[ply] = new int[size];
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a compact binary form of the card and grid configuration files, for jobs
+ * that load the same configuration many times. All numbers are big-endian.
+ *
+ * <p>A deck file holds a 12-byte header (the magic number "TTDK", a 2-byte version, 2 reserved
+ * bytes and the card count), then the packed attack values of every card as 2-byte values in
+ * the form used by {@link Card}, then a table of count + 1 name offsets of 4 bytes each and
+ * finally the UTF-8 bytes of all names one after the other. The name of card i is the bytes
+ * between offsets i and i + 1.
+ *
+ * <p>A grid file holds a 16-byte header (the magic number "TTGR", a 2-byte version, 2 reserved
+ * bytes, the number of rows and the number of columns) followed by one bit per cell, row by row,
+ * set for a card cell and clear for a hole, with the first cell in the lowest bit of the first
+ * byte.
+ *
+ * <p>Files are read by mapping them into memory. A {@link Deck} reads attack values and names
+ * straight from the mapped file and only creates Card objects when asked for them.
+ */
+public final class BinaryConfig {
+  /**
+   * The version of the format written by this class.
+   */
+  public static final int VERSION = 1;
+
+  private static final int DECK_MAGIC = 0x5454444B;
+  private static final int GRID_MAGIC = 0x54544752;
+  private static final int DECK_HEADER = 12;
+  private static final int GRID_HEADER = 16;
+
+  private BinaryConfig() {
+  }
+
+  /**
+   * Converts a card file in the text format read by {@link FileReader} to a binary deck file.
+   *
+   * @param textPath   the path of the text card file
+   * @param binaryPath the path of the deck file to write
+   * @throws IOException              if a file cannot be read or written
+   * @throws IllegalArgumentException if the text file is not a valid card file
+   */
+  public static void convertCards(String textPath, String binaryPath) throws IOException {
+    writeCards(FileReader.loadCards(textPath), binaryPath);
+  }
+
+  /**
+   * Converts a grid file in the text format read by {@link FileReader} to a binary grid file.
+   *
+   * @param textPath   the path of the text grid file
+   * @param binaryPath the path of the grid file to write
+   * @throws IOException              if a file cannot be read or written
+   * @throws IllegalArgumentException if the text file is not a valid grid file
+   */
+  public static void convertGrid(String textPath, String binaryPath) throws IOException {
+    writeGrid(FileReader.loadGrid(textPath), binaryPath);
+  }
+
+  /**
+   * Writes cards to a binary deck file.
+   *
+   * @param cards      the cards to write, in order
+   * @param binaryPath the path of the deck file to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeCards(List<Card> cards, String binaryPath) throws IOException {
+    List<byte[]> names = new ArrayList<>(cards.size());
+    for (Card card : cards) {
+      names.add(card.getName().getBytes(StandardCharsets.UTF_8));
+    }
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(binaryPath)))) {
+      out.writeInt(DECK_MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(0);
+      out.writeInt(cards.size());
+      for (Card card : cards) {
+        out.writeShort(card.getPackedAttacks());
+      }
+      int offset = 0;
+      out.writeInt(offset);
+      for (byte[] name : names) {
+        offset += name.length;
+        out.writeInt(offset);
+      }
+      for (byte[] name : names) {
+        out.write(name);
+      }
+    }
+  }
+
+  /**
+   * Writes the layout of a grid to a binary grid file. Any cards on the grid are not written.
+   *
+   * @param grid       the grid to write
+   * @param binaryPath the path of the grid file to write
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeGrid(IntGrid grid, String binaryPath) throws IOException {
+    int rows = grid.getRows();
+    int cols = grid.getCols();
+    byte[] mask = new byte[(rows * cols + 7) / 8];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        if (grid.getCell(i, j).isCardCell()) {
+          int index = i * cols + j;
+          mask[index >>> 3] |= 1 << (index & 7);
+        }
+      }
+    }
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(binaryPath)))) {
+      out.writeInt(GRID_MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(0);
+      out.writeInt(rows);
+      out.writeInt(cols);
+      out.write(mask);
+    }
+  }
+
+  /**
+   * Maps a binary deck file into memory.
+   *
+   * @param binaryPath the path of the deck file
+   * @return a view of the deck that reads from the mapped file
+   * @throws java.io.FileNotFoundException if the file is not found at the specified path
+   * @throws IOException                   if the file cannot be read
+   * @throws IllegalArgumentException      if the file is not a deck file of a supported version
+   */
+  public static Deck loadDeck(String binaryPath) throws IOException {
+    return new Deck(MappedFileReader.map(binaryPath));
+  }
+
+  /**
+   * Loads the cards of a binary deck file. As with {@link FileReader#loadCards(String)}, every
+   * card is registered with the {@link CardRegistry} and equal cards are the same instance.
+   *
+   * @param binaryPath the path of the deck file
+   * @return the cards in the file, in order
+   * @throws java.io.FileNotFoundException if the file is not found at the specified path
+   * @throws IOException                   if the file cannot be read
+   * @throws IllegalArgumentException      if the file is not a valid deck file
+   */
+  public static List<Card> loadCards(String binaryPath) throws IOException {
+    Deck deck = loadDeck(binaryPath);
+    List<Card> cards = new ArrayList<>(deck.size());
+    for (int i = 0; i < deck.size(); i++) {
+      cards.add(deck.getCard(i));
+    }
+    return cards;
+  }
+
+  /**
+   * Loads a binary grid file into a Grid.
+   *
+   * @param binaryPath the path of the grid file
+   * @return the grid, with all card cells empty
+   * @throws java.io.FileNotFoundException if the file is not found at the specified path
+   * @throws IOException                   if the file cannot be read
+   * @throws IllegalArgumentException      if the file is not a valid grid file
+   */
+  public static Grid loadGrid(String binaryPath) throws IOException {
+    Cell[][] grid = loadLayout(binaryPath);
+    return new Grid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  /**
+   * Loads a binary grid file into a BitGrid.
+   *
+   * @param binaryPath the path of the grid file
+   * @return the grid, with all card cells empty
+   * @throws java.io.FileNotFoundException if the file is not found at the specified path
+   * @throws IOException                   if the file cannot be read
+   * @throws IllegalArgumentException      if the file is not a valid grid file
+   */
+  public static BitGrid loadBitGrid(String binaryPath) throws IOException {
+    Cell[][] grid = loadLayout(binaryPath);
+    return new BitGrid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  private static Cell[][] loadLayout(String binaryPath) throws IOException {
+    ByteBuffer buffer = MappedFileReader.map(binaryPath);
+    checkHeader(buffer, GRID_MAGIC, GRID_HEADER, "grid");
+    int rows = buffer.getInt(8);
+    int cols = buffer.getInt(12);
+    if (rows < 0 || cols < 0
+            || (long) rows * cols > 8L * (buffer.limit() - GRID_HEADER)) {
+      throw new IllegalArgumentException("Grid file is truncated.");
+    }
+    Cell[][] grid = new Cell[rows][cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        int index = i * cols + j;
+        grid[i][j] = new Cell((buffer.get(GRID_HEADER + (index >>> 3)) & (1 << (index & 7))) != 0);
+      }
+    }
+    return grid;
+  }
+
+  private static void checkHeader(ByteBuffer buffer, int magic, int headerSize, String kind) {
+    if (buffer.limit() < headerSize || buffer.getInt(0) != magic) {
+      throw new IllegalArgumentException("Not a binary " + kind + " file.");
+    }
+    int version = buffer.getShort(4) & 0xFFFF;
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported " + kind + " file version " + version + ".");
+    }
+  }
+
+  /**
+   * Converts text configuration files to the binary format from the command line.
+   * Usage: BinaryConfig cards|grid text-file binary-file
+   *
+   * @param args the command-line arguments
+   * @throws IOException if a file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3 || !args[0].equals("cards") && !args[0].equals("grid")) {
+      System.err.println("Usage: BinaryConfig cards|grid text-file binary-file");
+      System.exit(1);
+    }
+    if (args[0].equals("cards")) {
+      convertCards(args[1], args[2]);
+    } else {
+      convertGrid(args[1], args[2]);
+    }
+  }
+
+  /**
+   * A binary deck file mapped into memory. Opening a deck checks its name table once, in time
+   * linear in the number of cards; attack values and names are then read from the mapped bytes
+   * on request.
+   */
+  public static final class Deck {
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int offsetsStart;
+    private final int namesStart;
+
+    private Deck(ByteBuffer buffer) {
+      checkHeader(buffer, DECK_MAGIC, DECK_HEADER, "deck");
+      int count = buffer.getInt(8);
+      if (count < 0 || DECK_HEADER + 6L * count + 4 > buffer.limit()) {
+        throw new IllegalArgumentException("Deck file is truncated.");
+      }
+      this.buffer = buffer;
+      this.size = count;
+      this.offsetsStart = DECK_HEADER + 2 * size;
+      this.namesStart = offsetsStart + 4 * (size + 1);
+      if ((long) namesStart + buffer.getInt(namesStart - 4) > buffer.limit()) {
+        throw new IllegalArgumentException("Deck file is truncated.");
+      }
+      // name offsets must never decrease, so with the last one checked above every name lies
+      // inside the name area
+      int previous = 0;
+      for (int i = 0; i <= size; i++) {
+        int offset = buffer.getInt(offsetsStart + 4 * i);
+        if (offset < previous) {
+          throw new IllegalArgumentException("Deck file has a corrupt name table.");
+        }
+        previous = offset;
+      }
+    }
+
+    /**
+     * Returns the number of cards in the deck.
+     *
+     * @return the number of cards
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns the packed attack values of a card, read straight from the file.
+     *
+     * @param index the position of the card in the deck
+     * @return the packed attack values, see {@link Card#attack(int, int)}
+     * @throws IndexOutOfBoundsException if there is no card at the index
+     */
+    public int getAttacks(int index) {
+      return buffer.getShort(DECK_HEADER + 2 * checkIndex(index)) & 0xFFFF;
+    }
+
+    /**
+     * Returns the name of a card.
+     *
+     * @param index the position of the card in the deck
+     * @return the name of the card
+     * @throws IndexOutOfBoundsException if there is no card at the index
+     */
+    public String getName(int index) {
+      int start = buffer.getInt(offsetsStart + 4 * checkIndex(index));
+      int end = buffer.getInt(offsetsStart + 4 * index + 4);
+      byte[] name = new byte[end - start];
+      for (int i = 0; i < name.length; i++) {
+        name[i] = buffer.get(namesStart + start + i);
+      }
+      return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a card of the deck, registered with the {@link CardRegistry}.
+     *
+     * @param index the position of the card in the deck
+     * @return the canonical instance of the card
+     * @throws IndexOutOfBoundsException if there is no card at the index
+     * @throws IllegalArgumentException  if the card has an attack value outside 1 to A
+     */
+    public Card getCard(int index) {
+      int attacks = getAttacks(index);
+      Card card = new Card(getName(index), Card.attack(attacks, 0), Card.attack(attacks, 1),
+              Card.attack(attacks, 2), Card.attack(attacks, 3));
+      return CardRegistry.getCard(CardRegistry.intern(card));
+    }
+
+    private int checkIndex(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("No card at index " + index);
+      }
+      return index;
+    }
+  }
+}
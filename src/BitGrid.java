@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * A grid for the Three Trios game that stores its state as packed bitmasks instead of a
+ * two-dimensional array of Cell objects. Cells are numbered row by row, so the cell at
+ * (row, col) has the index row * cols + col, and each index maps to one bit in the masks.
+ * The grid keeps one mask for card cells, one for occupied cells and one for each of the two
+ * players that can own a card, plus parallel arrays with the card placed in each cell and its
+ * {@link CardRegistry} id. Cells hand back the card object that was placed, as a {@link Grid}
+ * does, while the battle code reads only the ids.
+ * Counting empty card cells or owned cells is therefore a popcount over a few longs, and a
+ * neighbor table built once from the card cell mask gives the adjacent card cells of every cell.
+ * The first two distinct players that place a card on the grid take the red and blue
+ * ownership masks, in that order.
+ */
+public class BitGrid implements IntGrid {
+  private static final int EMPTY = -1;
+
+  private final int rows;
+  private final int cols;
+  // shared by copies, never written after construction
+  private final long[] cardCells;
+  private final long[] occupied;
+  private final long[] redOwned;
+  private final long[] blueOwned;
+  private final int[] cardIds;
+  private final Card[] cards;
+  private final Player[] players;
+  // shared by copies, never written after construction
+  private int[] neighbors;
+  private GridSymmetry symmetry;
+
+  /**
+   * Constructs a new BitGrid from the specified layout and dimensions.
+   * Any cards already placed in the layout are copied into the grid.
+   * Uses an invariant here making sure for that all cases the grid will have an odd number of cards
+   *
+   * @param grid a two-dimensional array representing the layout of the grid
+   * @param rows the number of rows in the grid
+   * @param cols the number of columns in the grid
+   * @throws IllegalArgumentException if the grid does not contain an odd number of card cells
+   */
+  public BitGrid(Cell[][] grid, int rows, int cols) {
+    this(rows, cols, new long[(rows * cols + 63) >>> 6]);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        if (grid[i][j].isCardCell()) {
+          int index = i * cols + j;
+          cardCells[index >>> 6] |= 1L << index;
+        }
+      }
+    }
+    if (popcount(cardCells) % 2 == 0) {
+      throw new IllegalArgumentException("Grid must have an odd number of card cells.");
+    }
+    boolean[] isCardCell = new boolean[rows * cols];
+    for (int index = 0; index < isCardCell.length; index++) {
+      isCardCell[index] = isSet(cardCells, index);
+    }
+    this.neighbors = NeighborTable.build(isCardCell, rows, cols);
+    this.symmetry = GridSymmetry.of(isCardCell, rows, cols);
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        if (grid[i][j].isCardCell() && !grid[i][j].isEmpty()) {
+          placeCard(i, j, grid[i][j].getCard(), grid[i][j].getOwner());
+        }
+      }
+    }
+  }
+
+  /**
+   * Constructs an empty BitGrid with the given card cell mask, for the constructor to fill in or
+   * for a copy to share.
+   */
+  private BitGrid(int rows, int cols, long[] cardCells) {
+    int words = cardCells.length;
+    this.rows = rows;
+    this.cols = cols;
+    this.cardCells = cardCells;
+    this.occupied = new long[words];
+    this.redOwned = new long[words];
+    this.blueOwned = new long[words];
+    this.cardIds = new int[rows * cols];
+    this.cards = new Card[rows * cols];
+    this.players = new Player[2];
+    Arrays.fill(cardIds, EMPTY);
+  }
+
+  @Override
+  public int getRows() {
+    return rows;
+  }
+
+  @Override
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Returns a view of the cell at the specified row and column. The view reads its state from
+   * this grid, so it always reflects the current contents of the cell, and flipping or placing
+   * a card through the view updates the grid.
+   *
+   * @param row the row index of the cell
+   * @param col the column index of the cell
+   * @return a view of the cell at the specified row and column
+   * @throws IllegalArgumentException if the coordinates are outside the grid
+   */
+  @Override
+  public Cell getCell(int row, int col) {
+    return new CellView(indexOf(row, col));
+  }
+
+  @Override
+  public boolean isValidMove(int row, int col) {
+    int index = indexOf(row, col);
+    return isSet(cardCells, index) && !isSet(occupied, index);
+  }
+
+  @Override
+  public void placeCard(int row, int col, Card card, Player player) {
+    if (!isValidMove(row, col)) {
+      throw new IllegalArgumentException("Invalid move.");
+    }
+    int index = row * cols + col;
+    cardIds[index] = CardRegistry.idOf(card);
+    cards[index] = card;
+    occupied[index >>> 6] |= 1L << index;
+    setOwner(index, player);
+  }
+
+  @Override
+  public void removeCard(int row, int col) {
+    int index = indexOf(row, col);
+    if (!isSet(occupied, index)) {
+      throw new IllegalArgumentException("No card to remove.");
+    }
+    occupied[index >>> 6] &= ~(1L << index);
+    cardIds[index] = EMPTY;
+    cards[index] = null;
+    setOwner(index, null);
+  }
+
+  @Override
+  public BitGrid copy(UnaryOperator<Player> owners) {
+    BitGrid copy = new BitGrid(rows, cols, cardCells);
+    System.arraycopy(occupied, 0, copy.occupied, 0, occupied.length);
+    System.arraycopy(redOwned, 0, copy.redOwned, 0, redOwned.length);
+    System.arraycopy(blueOwned, 0, copy.blueOwned, 0, blueOwned.length);
+    System.arraycopy(cardIds, 0, copy.cardIds, 0, cardIds.length);
+    System.arraycopy(cards, 0, copy.cards, 0, cards.length);
+    copy.neighbors = neighbors;
+    copy.symmetry = symmetry;
+    for (int i = 0; i < players.length; i++) {
+      copy.players[i] = players[i] == null ? null : owners.apply(players[i]);
+    }
+    return copy;
+  }
+
+  @Override
+  public int getEmptyCardCellCount() {
+    int empty = 0;
+    for (int w = 0; w < cardCells.length; w++) {
+      empty += Long.bitCount(cardCells[w] & ~occupied[w]);
+    }
+    return empty;
+  }
+
+  @Override
+  public int getOwnedCount(IntPlayer player) {
+    if (player != null && player == players[0]) {
+      return popcount(redOwned);
+    } else if (player != null && player == players[1]) {
+      return popcount(blueOwned);
+    }
+    return 0;
+  }
+
+  @Override
+  public int getNeighbor(int index, int direction) {
+    return neighbors[4 * index + direction];
+  }
+
+  @Override
+  public GridSymmetry getSymmetry() {
+    return symmetry;
+  }
+
+  @Override
+  public Player getOwnerAt(int index) {
+    return ownerAt(index);
+  }
+
+  @Override
+  public int getCardIdAt(int index) {
+    return cardIds[index];
+  }
+
+  @Override
+  public void flipAt(int index, Player newOwner) {
+    if (isSet(occupied, index)) {
+      setOwner(index, newOwner);
+    }
+  }
+
+  /**
+   * Returns the flat index of the given coordinates, checking that they lie on the grid.
+   */
+  private int indexOf(int row, int col) {
+    if (row < 0 || row >= rows || col < 0 || col >= cols) {
+      throw new IllegalArgumentException("Invalid cell coordinates");
+    }
+    return row * cols + col;
+  }
+
+  /**
+   * Moves the cell at the given index into the ownership mask of the given player.
+   */
+  private void setOwner(int index, Player player) {
+    long bit = 1L << index;
+    int word = index >>> 6;
+    redOwned[word] &= ~bit;
+    blueOwned[word] &= ~bit;
+    if (player == null) {
+      return;
+    }
+    if (players[0] == null || players[0] == player) {
+      players[0] = player;
+      redOwned[word] |= bit;
+    } else if (players[1] == null || players[1] == player) {
+      players[1] = player;
+      blueOwned[word] |= bit;
+    } else {
+      throw new IllegalArgumentException("A BitGrid only supports two players.");
+    }
+  }
+
+  private Player ownerAt(int index) {
+    if (isSet(redOwned, index)) {
+      return players[0];
+    } else if (isSet(blueOwned, index)) {
+      return players[1];
+    }
+    return null;
+  }
+
+  private static boolean isSet(long[] mask, int index) {
+    return (mask[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private static int popcount(long[] mask) {
+    int count = 0;
+    for (long word : mask) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * A cell whose state lives in the enclosing grid's bitmasks.
+   */
+  private class CellView extends Cell {
+    private final int index;
+
+    CellView(int index) {
+      super(isSet(cardCells, index));
+      this.index = index;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return !isSet(occupied, index);
+    }
+
+    @Override
+    public void placeCard(Card card, Player ownCard) {
+      BitGrid.this.placeCard(index / cols, index % cols, card, ownCard);
+    }
+
+    @Override
+    public Card getCard() {
+      return cards[index];
+    }
+
+    @Override
+    public Player getOwner() {
+      return ownerAt(index);
+    }
+
+    @Override
+    public void flip(Player newOwner) {
+      if (!isEmpty()) {
+        setOwner(index, newOwner);
+      }
+    }
+  }
+}
@@ -2,13 +2,17 @@
  * This class represents a card in the Three Trios game.
  * Each card has a unique name and four attack values corresponding to the four cardinal directions:
  * North, South, East, and West.
+ * The attack values are stored packed into a single int, four bits per direction, with the
+ * value for a direction at bit offset {@code 4 * direction.ordinal()}.
  */
 public class Card {
+  private static final int MIN_ATTACK = 1;
+  private static final int MAX_ATTACK = 10;
+
   private final String name;
-  private final int north;
-  private final int south;
-  private final int east;
-  private final int west;
+  private final int attacks;
+  private int id;
+  private int generation;
 
   /**
    * Constructs a Card with a specified name and attack values in each direction.
@@ -18,13 +22,47 @@ public class Card {
    * @param south the attack value on the South side of the card
    * @param east  the attack value on the East side of the card
    * @param west  the attack value on the West side of the card
+   * @throws IllegalArgumentException if an attack value is not between 1 and 10
    */
   public Card(String name, int north, int south, int east, int west) {
     this.name = name;
-    this.north = north;
-    this.south = south;
-    this.east = east;
-    this.west = west;
+    this.attacks = pack(north, south, east, west);
+    this.id = -1;
+  }
+
+  /**
+   * Packs four attack values into a single int, four bits per direction.
+   *
+   * @param north the attack value on the North side of the card
+   * @param south the attack value on the South side of the card
+   * @param east  the attack value on the East side of the card
+   * @param west  the attack value on the West side of the card
+   * @return the packed attack values
+   * @throws IllegalArgumentException if an attack value is not between 1 and 10
+   */
+  public static int pack(int north, int south, int east, int west) {
+    return checkAttack(north)
+            | checkAttack(south) << 4
+            | checkAttack(east) << 8
+            | checkAttack(west) << 12;
+  }
+
+  /**
+   * Returns the attack value for a direction from packed attack values.
+   *
+   * @param attacks the packed attack values of a card
+   * @param dir     the ordinal of the direction
+   * @return the attack value in the given direction
+   */
+  public static int attack(int attacks, int dir) {
+    return (attacks >>> (dir << 2)) & 0xF;
+  }
+
+  private static int checkAttack(int value) {
+    if (value < MIN_ATTACK || value > MAX_ATTACK) {
+      throw new IllegalArgumentException("Attack values must be between 1 and A.");
+    }
+    return value;
   }
 
   /**
@@ -41,21 +79,45 @@ public class Card {
    *
    * @param dir the direction for which to retrieve the attack value (NORTH, SOUTH, EAST, or WEST)
    * @return the attack value in the specified direction
-   * @throws IllegalArgumentException if the specified direction is invalid
    */
   public int getAttackValue(Direction dir) {
-    switch (dir) {
-      case NORTH: return north;
-      case SOUTH: return south;
-      case EAST: return east;
-      case WEST: return west;
-      default: throw new IllegalArgumentException("Invalid direction.");
-    }
+    return attack(attacks, dir.ordinal());
+  }
+
+  /**
+   * Returns all four attack values of the card packed into one int, four bits per direction.
+   *
+   * @return the packed attack values
+   * @see #attack(int, int)
+   */
+  public int getPackedAttacks() {
+    return attacks;
+  }
+
+  /**
+   * Returns the id given to this card by the {@link CardRegistry}.
+   *
+   * @return the id of the card, or -1 if the card has not been registered since the registry
+   *         was last reset
+   */
+  public int getId() {
+    return generation == CardRegistry.generation() ? id : -1;
+  }
+
+  /**
+   * Records the id given to this card by the {@link CardRegistry}.
+   *
+   * @param id         the id of the card
+   * @param generation the number of resets of the registry when the id was given
+   */
+  void setId(int id, int generation) {
+    this.id = id;
+    this.generation = generation;
   }
 
   @Override
   public String toString() {
-    return String.format("%d\n%d %s %d\n%d", north, west, name, east, south);
+    return String.format("%d\n%d %s %d\n%d", attack(attacks, 0), attack(attacks, 3), name,
+            attack(attacks, 2), attack(attacks, 1));
   }
 }
-
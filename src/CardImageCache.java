@@ -0,0 +1,186 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws cards into images once and hands out the same image every time the same card is shown
+ * with the same background at the same size, so views repaint a card by copying an image instead
+ * of laying out labels and rendering text. Cards are identified by their {@link CardRegistry} id.
+ *
+ * <p>The cache holds at most a fixed number of images and drops the least recently used one when
+ * it is full. Images of a size that is no longer shown are not useful, so views should call
+ * {@link #clear()} when their cells are resized. Images handed out must not be drawn on.
+ */
+public final class CardImageCache {
+  private static final int DEFAULT_CAPACITY = 256;
+  private static final int BASE_SIZE = 80;
+  private static final int BASE_FONT = 14;
+
+  private final Map<Key, BufferedImage> images;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs an empty cache holding up to 256 images.
+   */
+  public CardImageCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs an empty cache.
+   *
+   * @param capacity the largest number of images to keep
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public CardImageCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive.");
+    }
+    this.images = new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the image of a card, drawing it if it is not cached. The image shows the card's
+   * attack values on the given background with a thin black border.
+   *
+   * @param cardId     the {@link CardRegistry} id of the card
+   * @param background the background color of the card
+   * @param width      the width of the image, in pixels
+   * @param height     the height of the image, in pixels
+   * @return the image of the card
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public synchronized BufferedImage getImage(int cardId, Color background, int width,
+                                             int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Card images must have a positive size.");
+    }
+    Key key = new Key(cardId, background.getRGB(), width, height);
+    BufferedImage image = images.get(key);
+    if (image != null) {
+      hits++;
+      return image;
+    }
+    misses++;
+    image = render(CardRegistry.getAttacks(cardId), background, width, height);
+    images.put(key, image);
+    return image;
+  }
+
+  /**
+   * Returns how many images were found in the cache.
+   *
+   * @return the number of cache hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns how many images had to be drawn.
+   *
+   * @return the number of cache misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of images in the cache.
+   *
+   * @return the number of cached images
+   */
+  public synchronized int size() {
+    return images.size();
+  }
+
+  /**
+   * Removes every image from the cache. The hit and miss counts are kept.
+   */
+  public synchronized void clear() {
+    images.clear();
+  }
+
+  /**
+   * Draws a card with the layout of the original card panels: north and south values centered at
+   * the top and bottom, west and east values at the middle of the sides, all in bold Arial that
+   * is 14 points on an 80 pixel card.
+   */
+  private static BufferedImage render(int attacks, Color background, int width, int height) {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+              RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setColor(background);
+      g.fillRect(0, 0, width, height);
+      g.setColor(Color.BLACK);
+      g.drawRect(0, 0, width - 1, height - 1);
+
+      int fontSize = Math.max(6, Math.min(width, height) * BASE_FONT / BASE_SIZE);
+      g.setFont(new Font("Arial", Font.BOLD, fontSize));
+      FontMetrics metrics = g.getFontMetrics();
+      int pad = Math.max(2, Math.min(width, height) / 20);
+      String north = value(attacks, Direction.NORTH);
+      String south = value(attacks, Direction.SOUTH);
+      String east = value(attacks, Direction.EAST);
+      String west = value(attacks, Direction.WEST);
+      int middle = (height + metrics.getAscent() - metrics.getDescent()) / 2;
+      g.drawString(north, (width - metrics.stringWidth(north)) / 2, pad + metrics.getAscent());
+      g.drawString(south, (width - metrics.stringWidth(south)) / 2,
+              height - pad - metrics.getDescent());
+      g.drawString(west, pad, middle);
+      g.drawString(east, width - pad - metrics.stringWidth(east), middle);
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  private static String value(int attacks, Direction direction) {
+    return String.valueOf(Card.attack(attacks, direction.ordinal()));
+  }
+
+  /**
+   * The card, background and size an image was drawn for.
+   */
+  private static final class Key {
+    private final int cardId;
+    private final int rgb;
+    private final int width;
+    private final int height;
+
+    Key(int cardId, int rgb, int width, int height) {
+      this.cardId = cardId;
+      this.rgb = rgb;
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return cardId == other.cardId && rgb == other.rgb
+              && width == other.width && height == other.height;
+    }
+
+    @Override
+    public int hashCode() {
+      return ((cardId * 31 + rgb) * 31 + width) * 31 + height;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A process-wide registry that gives every distinct card a dense integer id.
+ * Two cards with the same name and attack values share an id, and the first card registered
+ * with those values is kept as the canonical instance. For each id the registry stores the
+ * card's attack values packed into a short, so code that only compares attack values can work
+ * with ids and never touch the Card objects.
+ *
+ * <p>The registry never forgets a card on its own, so it holds at most {@link #MAX_CARDS}
+ * distinct cards. A long batch job that generates deck after deck should call {@link #reset()}
+ * between decks, once no grid, game or snapshot built from the earlier decks is still in use.
+ */
+public final class CardRegistry {
+  /**
+   * The largest number of distinct cards the registry holds at once.
+   */
+  public static final int MAX_CARDS = 1 << 20;
+
+  private static final Map<String, Integer> ids = new HashMap<>();
+  private static volatile Card[] cards = new Card[64];
+  private static volatile short[] attacks = new short[64];
+  private static int size = 0;
+  private static volatile int generation = 0;
+
+  private CardRegistry() {
+  }
+
+  /**
+   * Registers a card and returns its id. If an equal card is already registered the existing
+   * id is returned. The id is also recorded on the card itself.
+   *
+   * @param card the card to register
+   * @return the id of the card
+   * @throws IllegalStateException if the card is new and the registry already holds
+   *                               {@link #MAX_CARDS} cards
+   */
+  public static synchronized int intern(Card card) {
+    if (card.getId() >= 0) {
+      return card.getId();
+    }
+    String key = card.getName() + '\u0000' + card.getPackedAttacks();
+    Integer id = ids.get(key);
+    if (id == null) {
+      if (size == MAX_CARDS) {
+        throw new IllegalStateException("The card registry is full; reset it between decks.");
+      }
+      id = size;
+      if (size == cards.length) {
+        cards = Arrays.copyOf(cards, size * 2);
+        attacks = Arrays.copyOf(attacks, size * 2);
+      }
+      Card[] newCards = cards;
+      short[] newAttacks = attacks;
+      newCards[size] = card;
+      newAttacks[size] = (short) card.getPackedAttacks();
+      size++;
+      ids.put(key, id);
+      // republish so readers on other threads see the new entry
+      cards = newCards;
+      attacks = newAttacks;
+    }
+    card.setId(id, generation);
+    return id;
+  }
+
+  /**
+   * Forgets every registered card, so the next cards registered get ids from 0 again. Cards
+   * registered before keep no id and are registered again when next used. Grids, games and
+   * snapshots built before the reset still hold the old ids, so they must not be used after it.
+   */
+  public static synchronized void reset() {
+    ids.clear();
+    cards = new Card[64];
+    attacks = new short[64];
+    size = 0;
+    generation++;
+  }
+
+  /**
+   * Returns how many times the registry has been reset, which tells ids given before a reset
+   * from current ones.
+   */
+  static int generation() {
+    return generation;
+  }
+
+  /**
+   * Returns the id of a card, registering the card first if it has no id yet.
+   *
+   * @param card the card
+   * @return the id of the card
+   */
+  public static int idOf(Card card) {
+    int id = card.getId();
+    return id >= 0 ? id : intern(card);
+  }
+
+  /**
+   * Returns the canonical card registered under the given id.
+   *
+   * @param id the id of the card
+   * @return the card with the given id
+   */
+  public static Card getCard(int id) {
+    return cards[id];
+  }
+
+  /**
+   * Returns the packed attack values of the card with the given id.
+   *
+   * @param id the id of the card
+   * @return the packed attack values, see {@link Card#attack(int, int)}
+   */
+  public static int getAttacks(int id) {
+    return attacks[id] & 0xFFFF;
+  }
+
+  /**
+   * Returns the number of distinct cards registered so far.
+   *
+   * @return the number of registered cards
+   */
+  public static synchronized int size() {
+    return size;
+  }
+}
@@ -1,11 +1,14 @@
 /**
  * This class represents a cell in the grid of the Three Trios game.
  * A cell can either be a card cell or a hole. Card cells can hold a card and track its owner.
+ * A cell that belongs to a Grid reports every change of its card or owner to that grid, so the
+ * grid's counters stay correct however the cell is modified.
  */
 public class Cell {
   private final boolean isCardCell;
   private Card card;
   private Player ownCard;
+  private Grid grid;
 
   /**
    * Constructs a Cell with the specified type.
@@ -43,8 +46,13 @@ public class Cell {
    * @param ownCard the player who owns the card
    */
   public void placeCard(Card card, Player ownCard) {
+    Card oldCard = this.card;
+    Player oldOwner = this.ownCard;
     this.card = card;
     this.ownCard = ownCard;
+    if (grid != null && isCardCell) {
+      grid.cellChanged(oldCard != null, oldOwner, card != null, ownCard);
+    }
   }
 
   /**
@@ -71,6 +79,19 @@ public class Cell {
    * @param newOwner the player who will become the new owner of the card
    */
   public void flip(Player newOwner) {
+    Player oldOwner = this.ownCard;
     this.ownCard = newOwner;
+    if (grid != null && isCardCell && card != null) {
+      grid.cellChanged(true, oldOwner, true, newOwner);
+    }
+  }
+
+  /**
+   * Makes this cell report its changes to the given grid.
+   *
+   * @param grid the grid this cell belongs to
+   */
+  void attach(Grid grid) {
+    this.grid = grid;
   }
 }
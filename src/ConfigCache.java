@@ -0,0 +1,167 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caches parsed grid and card configuration files, so setting up many games from the same
+ * files parses each file once. Entries are keyed by the canonical path of the file and remember
+ * the file's modification time and size, so a file that changes on disk is parsed again on its
+ * next use. The cache holds at most a fixed number of entries and evicts the least recently used
+ * one when it is full.
+ *
+ * <p>Cached grids are templates that are never handed out: every request for a grid returns a
+ * fresh copy of the template, and card lists are returned unmodifiable. The cache is safe to use
+ * from several threads; files are parsed outside its lock.
+ */
+public final class ConfigCache {
+  private static final int DEFAULT_CAPACITY = 32;
+  private static final ConfigCache DEFAULT = new ConfigCache(DEFAULT_CAPACITY);
+
+  private final Map<String, CachedFile> entries;
+  private long hits;
+  private long misses;
+
+  /**
+   * Constructs an empty cache.
+   *
+   * @param capacity the largest number of files to keep
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public ConfigCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive.");
+    }
+    this.entries = new LinkedHashMap<String, CachedFile>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedFile> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the cache shared by the whole process.
+   *
+   * @return the default cache
+   */
+  public static ConfigCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns a new grid with the layout of the given grid file, parsing the file only if it is not
+   * cached or has changed since it was cached.
+   *
+   * @param filePath the path to the grid configuration file
+   * @return a new, empty grid that belongs to the caller
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IllegalArgumentException if the file contains invalid cell types
+   */
+  public Grid getGrid(String filePath) throws FileNotFoundException {
+    Grid template = (Grid) get("grid:", filePath, FileReader::loadGrid);
+    return template.copy(UnaryOperator.identity());
+  }
+
+  /**
+   * Returns the cards of the given card file, parsing the file only if it is not cached or has
+   * changed since it was cached. The cards are the canonical instances of the
+   * {@link CardRegistry}, as returned by {@link FileReader#loadCards(String)}.
+   *
+   * @param filePath the path to the card configuration file
+   * @return an unmodifiable list of the cards in the file
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IllegalArgumentException if the file contains invalid card data
+   */
+  @SuppressWarnings("unchecked")
+  public List<Card> getCards(String filePath) throws FileNotFoundException {
+    return (List<Card>) get("cards:", filePath,
+            path -> Collections.unmodifiableList(new ArrayList<>(FileReader.loadCards(path))));
+  }
+
+  /**
+   * Returns how many requests were answered from the cache.
+   *
+   * @return the number of cache hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns how many requests had to parse their file.
+   *
+   * @return the number of cache misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Removes every entry from the cache. The hit and miss counts are kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Returns the cached value for a file if it is still current, and otherwise loads the file and
+   * caches the result. The modification time and size are read before the file is parsed, so a
+   * change made while it is being parsed is picked up by the next request.
+   */
+  private Object get(String kind, String filePath, Loader loader) throws FileNotFoundException {
+    File file = new File(filePath);
+    String key = kind + canonicalPath(file);
+    long modified = file.lastModified();
+    long size = file.length();
+    synchronized (this) {
+      CachedFile entry = entries.get(key);
+      if (entry != null && entry.modified == modified && entry.size == size) {
+        hits++;
+        return entry.value;
+      }
+      misses++;
+    }
+    Object value = loader.load(filePath);
+    synchronized (this) {
+      entries.put(key, new CachedFile(modified, size, value));
+    }
+    return value;
+  }
+
+  private static String canonicalPath(File file) throws FileNotFoundException {
+    try {
+      return file.getCanonicalPath();
+    } catch (IOException e) {
+      throw new FileNotFoundException(file.getPath() + " (" + e.getMessage() + ")");
+    }
+  }
+
+  /**
+   * Parses a configuration file.
+   */
+  private interface Loader {
+    Object load(String filePath) throws FileNotFoundException;
+  }
+
+  /**
+   * A parsed file together with the modification time and size it had when it was parsed.
+   */
+  private static final class CachedFile {
+    private final long modified;
+    private final long size;
+    private final Object value;
+
+    CachedFile(long modified, long size, Object value) {
+      this.modified = modified;
+      this.size = size;
+      this.value = Objects.requireNonNull(value);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A strategy that thinks for a fixed time per move. It runs {@link AlphaBetaStrategy} searches
+ * one move deeper at a time, starting at depth 1, and plays the best move of the deepest search
+ * that finished before the time ran out. Searches read the clock once every
+ * {@value AlphaBetaStrategy#NODES_PER_CLOCK_CHECK} nodes, so a move takes at most the budget
+ * plus the time to search that many nodes. Each search tries the previous search's best move
+ * first and keeps the positions cached by the searches before it, so the shallower searches
+ * cost little next to the last one.
+ *
+ * <p>If even the depth 1 search does not finish in time, the strategy plays the move that flips
+ * the most cards. Deepening stops early once the search reaches the end of the game.
+ *
+ * <p>Every move records its think time in nanoseconds and the depth it finished in the
+ * {@link Metrics#getDefault() default metrics}, as the histograms deadline.ROWSxCOLS.nanos and
+ * deadline.ROWSxCOLS.depth, so think time percentiles can be compared across grid sizes.
+ */
+public class DeadlineStrategy implements ThreeTriosStrategy {
+    private final long budgetNanos;
+    private final AlphaBetaStrategy search;
+    private final Metrics metrics;
+    private int depthReached;
+    private long elapsedNanos;
+    private long nodes;
+
+    /**
+     * Creates a strategy with the given time per move and a table of 2^20 entries.
+     *
+     * @param budget the time to think about each move
+     * @throws IllegalArgumentException if the budget is negative or zero
+     */
+    public DeadlineStrategy(Duration budget) {
+        this(budget, 1 << 20);
+    }
+
+    /**
+     * Creates a strategy with the given time per move, searching on the calling thread.
+     *
+     * @param budget    the time to think about each move
+     * @param tableSize the number of transposition table entries
+     * @throws IllegalArgumentException if the budget is negative or zero
+     */
+    public DeadlineStrategy(Duration budget, int tableSize) {
+        this(budget, tableSize, null);
+    }
+
+    /**
+     * Creates a strategy with the given time per move, splitting each search across the workers
+     * of the given pool as {@link AlphaBetaStrategy} does.
+     *
+     * @param budget    the time to think about each move
+     * @param tableSize the number of transposition table entries per worker
+     * @param pool      the pool to search in, or null to search on the calling thread
+     * @throws IllegalArgumentException if the budget is negative or zero
+     */
+    public DeadlineStrategy(Duration budget, int tableSize, ForkJoinPool pool) {
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Time budget must be positive.");
+        }
+        this.budgetNanos = budget.toNanos();
+        this.search = new AlphaBetaStrategy(1, tableSize, pool);
+        this.metrics = Metrics.getDefault();
+    }
+
+    /**
+     * makes the best move found in the time budget
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void flipMost(String color, Game game) {
+        playMove(color, game);
+    }
+
+    /**
+     * makes the best move found in the time budget among moves into the corners of the grid,
+     * or among all moves if every corner is taken
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void bestCorner(String color, Game game) {
+        play(color, game, true);
+    }
+
+    @Override
+    public void playMove(String color, Game game) {
+        play(color, game, false);
+    }
+
+    /**
+     * Searches the current position until the time budget runs out and returns the best move
+     * without playing it.
+     *
+     * @param color the color of the player to move
+     * @param game  the game to search
+     * @return the best move, encoded as by {@link Game#encodeMove(int, int)}
+     * @throws IllegalArgumentException if it is not the given player's turn or the game is over
+     */
+    public int findBestMove(String color, Game game) {
+        return search(color, game, false);
+    }
+
+    /**
+     * Returns the number of positions visited by the last move's searches, the unfinished one
+     * included.
+     *
+     * @return the node count of the last move
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns the depth of the deepest search that finished during the last move.
+     *
+     * @return the depth reached, or 0 if no search finished and the greedy move was chosen
+     */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Returns how long the last move took to choose.
+     *
+     * @return the think time of the last move in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the time this strategy thinks about each move.
+     *
+     * @return the time budget per move
+     */
+    public Duration getBudget() {
+        return Duration.ofNanos(budgetNanos);
+    }
+
+    private void play(String color, Game game, boolean cornersOnly) {
+        int move = search(color, game, cornersOnly);
+        int cols = game.getGridDimensions()[1];
+        int cell = Game.moveCell(move);
+        game.playTurn(cell / cols, cell % cols,
+                game.getCurrentPlayer().getCardInSlot(Game.moveSlot(move)));
+    }
+
+    private int search(String color, Game game, boolean cornersOnly) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int[] dims = game.getGridDimensions();
+        int empty = game.getEmptyCardCellCount();
+
+        int best = -1;
+        depthReached = 0;
+        nodes = 0;
+        for (int depth = 1; ; depth++) {
+            int move = search.search(color, game, cornersOnly, depth, deadline, best, depth == 1);
+            nodes += search.getNodeCount();
+            if (move < 0) {
+                break;
+            }
+            best = move;
+            depthReached = depth;
+            if (depth >= empty || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        if (best < 0) {
+            best = search.getFirstRootMove();
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+        if (metrics.isEnabled()) {
+            String prefix = "deadline." + dims[0] + "x" + dims[1];
+            metrics.histogram(prefix + ".nanos").record(elapsedNanos);
+            metrics.histogram(prefix + ".depth").record(depthReached);
+        }
+        return best;
+    }
+}
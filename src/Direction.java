@@ -1,7 +1,35 @@
 /**
  * This enum represents the four cardinal directions used in the Three Trios game.
  * Each direction (NORTH, SOUTH, EAST, WEST) is associated with a side of a card.
+ * The ordinal of a direction is also the position of its attack value in a card's packed
+ * attack values, see {@link Card#getPackedAttacks()}.
  */
 public enum Direction {
   NORTH, SOUTH, EAST, WEST;
+
+  private static final Direction[] VALUES = values();
+
+  /**
+   * Opposite direction of each direction, indexed by ordinal.
+   */
+  private static final int[] OPPOSITE = {1, 0, 3, 2};
+
+  /**
+   * Returns the direction facing this one, e.g. SOUTH for NORTH.
+   *
+   * @return the opposite direction
+   */
+  public Direction opposite() {
+    return VALUES[OPPOSITE[ordinal()]];
+  }
+
+  /**
+   * Returns the ordinal of the direction opposite to the direction with the given ordinal.
+   *
+   * @param ordinal the ordinal of a direction
+   * @return the ordinal of the opposite direction
+   */
+  public static int opposite(int ordinal) {
+    return OPPOSITE[ordinal];
+  }
 }
@@ -0,0 +1,500 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A strategy that plays perfectly once few enough card cells are empty, and leaves earlier moves
+ * to another strategy. Given a position, the solver searches every order in which the remaining
+ * cells can be filled with every card left in the hands, to the end of the game, and finds the
+ * exact final margin as {@link Game#checkWinner} counts it, assuming both players play their
+ * best.
+ *
+ * <p>The search is negamax with alpha-beta pruning. Positions are memoized in a
+ * {@link TranspositionTable} under a canonical key built like {@link Game#getCanonicalKey()},
+ * which the solver keeps up to date move by move. So the same cells, owners and hands reached by
+ * different move orders are solved once, and so are rotations and reflections of a position on
+ * a symmetric grid. Only the symmetries that agree with the cards already on the grid when the
+ * solve starts can relate two positions of the search, so only those are tracked; late endgames
+ * usually track the identity alone. Cards in a hand with the same attack values play the same,
+ * so only the first of them is tried. The solver counts the positions it solves and, when the
+ * {@link Metrics#getDefault() default metrics} are enabled, adds them to the counter
+ * endgame.positions and records each solve's time in the histogram endgame.nanos.
+ */
+public class EndgameSolver implements ThreeTriosStrategy {
+    private final int threshold;
+    private final ThreeTriosStrategy fallback;
+    private final TranspositionTable table;
+    private final Metrics.Counter positions;
+    private final Metrics.Histogram nanos;
+    private int[][] moveLists = new int[0][];
+    private boolean[] repeated = new boolean[0];
+    private int cols;
+    private GridSymmetry symmetry;
+    private int[] symmetries;
+    private int symmetryCount;
+    private int[] attacksAt = new int[0];
+    private long[] cellKeys;
+    private long[] handKeys;
+    private int frame;
+    private int bestMove;
+    private long nodes;
+    private long elapsedNanos;
+
+    /**
+     * Creates a solver with a table of 2^20 entries.
+     *
+     * @param threshold the largest number of empty card cells to solve
+     * @param fallback  the strategy that plays while more cells are empty
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public EndgameSolver(int threshold, ThreeTriosStrategy fallback) {
+        this(threshold, fallback, 1 << 20);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param threshold the largest number of empty card cells to solve
+     * @param fallback  the strategy that plays while more cells are empty
+     * @param tableSize the number of transposition table entries
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public EndgameSolver(int threshold, ThreeTriosStrategy fallback, int tableSize) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Solver threshold must not be negative.");
+        }
+        this.threshold = threshold;
+        this.fallback = Objects.requireNonNull(fallback);
+        this.table = new TranspositionTable(tableSize);
+        this.positions = Metrics.getDefault().counter("endgame.positions");
+        this.nanos = Metrics.getDefault().histogram("endgame.nanos");
+    }
+
+    /**
+     * makes the best move if the endgame can be solved, and otherwise
+     * the fallback strategy's flipMost move
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void flipMost(String color, Game game) {
+        if (canSolve(game)) {
+            play(color, game);
+        } else {
+            fallback.flipMost(color, game);
+        }
+    }
+
+    /**
+     * makes the best move if the endgame can be solved, and otherwise
+     * the fallback strategy's bestCorner move
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void bestCorner(String color, Game game) {
+        if (canSolve(game)) {
+            play(color, game);
+        } else {
+            fallback.bestCorner(color, game);
+        }
+    }
+
+    @Override
+    public void playMove(String color, Game game) {
+        if (canSolve(game)) {
+            play(color, game);
+        } else {
+            fallback.playMove(color, game);
+        }
+    }
+
+    /**
+     * Returns whether few enough card cells are empty for this solver to play.
+     *
+     * @param game the game to check
+     * @return true if the number of empty card cells is at most the threshold
+     */
+    public boolean canSolve(Game game) {
+        return game.getEmptyCardCellCount() <= threshold;
+    }
+
+    /**
+     * Finds the final margin of the game, red's score minus blue's score, when both players play
+     * perfectly from the current position. The game is left unchanged. This solves the position
+     * however many cells are empty, so the time it takes grows very quickly with that number.
+     *
+     * @param game the game to solve
+     * @return the exact final margin from red's point of view
+     */
+    public int solve(Game game) {
+        long start = System.nanoTime();
+        boolean red = isRed(game.getCurrentPlayer().getColor());
+        int score = search(game, red);
+        elapsedNanos = System.nanoTime() - start;
+        positions.add(nodes);
+        nanos.record(elapsedNanos);
+        return red ? score : -score;
+    }
+
+    /**
+     * Solves the current position and returns the best move without playing it. Among moves
+     * with the same final margin, the one that flips the most cards now is preferred.
+     *
+     * @param color the color of the player to move
+     * @param game  the game to solve
+     * @return the best move, encoded as by {@link Game#encodeMove(int, int)}
+     * @throws IllegalArgumentException if it is not the given player's turn or the game is over
+     */
+    public int findBestMove(String color, Game game) {
+        if (!game.getCurrentPlayer().getColor().equalsIgnoreCase(color)) {
+            throw new IllegalArgumentException("It is not " + color + "'s turn.");
+        }
+        if (game.isGameOver()) {
+            throw new IllegalArgumentException("The game is over.");
+        }
+        solve(game);
+        return bestMove;
+    }
+
+    /**
+     * Returns the number of positions solved by the last call, counting each position reached
+     * once per time it was reached, memoized or not.
+     *
+     * @return the node count of the last solve
+     */
+    @Override
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns how long the last solve took.
+     *
+     * @return the duration of the last solve in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the speed of the last solve.
+     *
+     * @return positions solved per second during the last solve
+     */
+    public double getPositionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns the largest number of empty card cells this solver plays.
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    private void play(String color, Game game) {
+        int move = findBestMove(color, game);
+        int cell = Game.moveCell(move);
+        game.playTurn(cell / cols, cell % cols,
+                game.getCurrentPlayer().getCardInSlot(Game.moveSlot(move)));
+    }
+
+    private int search(Game game, boolean red) {
+        int[] dims = game.getGridDimensions();
+        cols = dims[1];
+        int empty = game.getEmptyCardCellCount();
+        if (moveLists.length <= empty) {
+            moveLists = Arrays.copyOf(moveLists, empty + 1);
+        }
+        initKeys(game, dims, red);
+        table.newSearch();
+        nodes = 0;
+        bestMove = -1;
+        return negamax(game, empty, -AlphaBetaStrategy.INFINITY, AlphaBetaStrategy.INFINITY, 0,
+                red);
+    }
+
+    /**
+     * Returns the exact final margin from the mover's point of view, or a bound on it outside
+     * the window, as usual for alpha-beta. Records the best move at the root.
+     */
+    private int negamax(Game game, int remaining, int alpha, int beta, int ply, boolean red) {
+        nodes++;
+        if (remaining == 0) {
+            return red ? game.getMargin() : -game.getMargin();
+        }
+
+        long key = canonicalKey(game);
+        int keyFrame = frame;
+        int alphaOrig = alpha;
+        int hashMove = -1;
+        int slot = table.probe(key);
+        if (slot >= 0) {
+            // the table holds moves as played in the canonical image of the position
+            int canonicalMove = table.getMove(slot);
+            hashMove = Game.encodeMove(symmetry.unmapCell(keyFrame, Game.moveCell(canonicalMove)),
+                    Game.moveSlot(canonicalMove));
+            int stored = table.getScore(slot);
+            int flag = table.getFlag(slot);
+            if (ply > 0) {
+                if (flag == TranspositionTable.EXACT) {
+                    return stored;
+                } else if (flag == TranspositionTable.LOWER) {
+                    alpha = Math.max(alpha, stored);
+                } else {
+                    beta = Math.min(beta, stored);
+                }
+                if (alpha >= beta) {
+                    return stored;
+                }
+            }
+        }
+
+        Player mover = game.getCurrentPlayer();
+        int count = generateMoves(game, mover, ply, hashMove);
+        if (count == 0) {
+            return red ? game.getMargin() : -game.getMargin();
+        }
+        int[] moves = moveLists[ply];
+        int owner = red ? Zobrist.RED : Zobrist.BLUE;
+        int best = -AlphaBetaStrategy.INFINITY;
+        int bestIndex = -1;
+        for (int i = 0; i < count; i++) {
+            int cell = Game.moveCell(moves[i]);
+            int attacks = mover.getCardInSlot(Game.moveSlot(moves[i])).getPackedAttacks();
+            game.makeMove(moves[i]);
+            int flips = symmetryCount > 1 ? game.getLastFlips() : 0;
+            updateKeys(cell, attacks, owner, flips);
+            updateHands(attacks, owner, -1);
+            int score = -negamax(game, remaining - 1, -beta, -alpha, ply + 1, !red);
+            updateHands(attacks, owner, 1);
+            updateKeys(cell, attacks, owner, flips);
+            game.unmakeMove();
+            if (score > best) {
+                best = score;
+                bestIndex = i;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int bestCellMove = moves[bestIndex];
+        if (ply == 0) {
+            bestMove = bestCellMove;
+        }
+        int flag;
+        if (best <= alphaOrig) {
+            flag = TranspositionTable.UPPER;
+        } else if (best >= beta) {
+            flag = TranspositionTable.LOWER;
+        } else {
+            flag = TranspositionTable.EXACT;
+        }
+        int canonicalMove = Game.encodeMove(symmetry.mapCell(keyFrame, Game.moveCell(bestCellMove)),
+                Game.moveSlot(bestCellMove));
+        table.store(key, remaining, flag, best, canonicalMove);
+        return best;
+    }
+
+    /**
+     * Fills the move list for the given ply with a move for every empty cell and every card in
+     * the mover's hand that does not repeat an earlier card's attack values, and sorts it: the
+     * hash move first, then from most to fewest flips.
+     */
+    private int generateMoves(Game game, Player mover, int ply, int hashMove) {
+        int size = game.getMoveCount();
+        if (moveLists[ply] == null || moveLists[ply].length < size) {
+            moveLists[ply] = new int[size];
+        }
+        int[] moves = moveLists[ply];
+        int count = game.generateMoves(moves);
+
+        Hand hand = mover.getSlots();
+        if (repeated.length < hand.getSlotCount()) {
+            repeated = new boolean[hand.getSlotCount()];
+        }
+        boolean anyRepeated = false;
+        for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+            int attacks = hand.getCard(slot).getPackedAttacks();
+            repeated[slot] = false;
+            for (int other = hand.nextSlot(0); other < slot && !repeated[slot];
+                    other = hand.nextSlot(other + 1)) {
+                repeated[slot] = hand.getCard(other).getPackedAttacks() == attacks;
+            }
+            anyRepeated |= repeated[slot];
+        }
+        if (anyRepeated) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (!repeated[Game.moveSlot(moves[i])]) {
+                    moves[kept++] = moves[i];
+                }
+            }
+            count = kept;
+        }
+        game.orderByFlipGain(moves, count, hashMove);
+        return count;
+    }
+
+    /**
+     * Chooses the symmetries to track and computes the keys of the root position's images under
+     * them: the cards on the grid and the player to move in cellKeys, the hands in handKeys.
+     * A symmetry can only map a position of the search onto another one if turning every card
+     * in play gives the same cards, and if it sends each card already on the grid, which stays
+     * where it is for the whole search, to an empty cell or to the same card turned. Other
+     * symmetries are not tracked.
+     */
+    private void initKeys(Game game, int[] dims, boolean red) {
+        GridSymmetry grid = game.getSymmetry();
+        int[] owners = new int[dims[0] * dims[1]];
+        if (attacksAt.length < owners.length) {
+            attacksAt = new int[owners.length];
+        }
+        Arrays.fill(owners, -1);
+        for (int row = 0; row < dims[0]; row++) {
+            for (int col = 0; col < dims[1]; col++) {
+                Cell cell = game.getCellContents(row, col);
+                if (cell.isCardCell() && !cell.isEmpty() && cell.getOwner() != null) {
+                    int index = row * cols + col;
+                    attacksAt[index] = cell.getCard().getPackedAttacks();
+                    owners[index] = isRed(cell.getOwner().getColor()) ? Zobrist.RED : Zobrist.BLUE;
+                }
+            }
+        }
+
+        List<Card> redHand = game.getRedPlayerHand();
+        List<Card> blueHand = game.getBluePlayerHand();
+        int[] inPlay = new int[owners.length + redHand.size() + blueHand.size()];
+        int count = 0;
+        for (int cell = 0; cell < owners.length; cell++) {
+            if (owners[cell] >= 0) {
+                inPlay[count++] = attacksAt[cell];
+            }
+        }
+        for (Card card : redHand) {
+            inPlay[count++] = card.getPackedAttacks();
+        }
+        for (Card card : blueHand) {
+            inPlay[count++] = card.getPackedAttacks();
+        }
+        inPlay = Arrays.copyOf(inPlay, count);
+        Arrays.sort(inPlay);
+        int[] turned = new int[count];
+
+        symmetry = grid;
+        symmetries = new int[grid.size()];
+        symmetryCount = 0;
+        for (int s = 0; s < grid.size(); s++) {
+            for (int i = 0; i < count; i++) {
+                turned[i] = grid.mapAttacks(s, inPlay[i]);
+            }
+            Arrays.sort(turned);
+            boolean possible = Arrays.equals(turned, inPlay);
+            for (int cell = 0; cell < owners.length && possible; cell++) {
+                int image = grid.mapCell(s, cell);
+                possible = owners[cell] < 0 || owners[image] < 0
+                        || attacksAt[image] == grid.mapAttacks(s, attacksAt[cell]);
+            }
+            if (possible) {
+                symmetries[symmetryCount++] = s;
+            }
+        }
+
+        cellKeys = new long[symmetryCount];
+        handKeys = new long[symmetryCount];
+        for (int i = 0; i < symmetryCount; i++) {
+            cellKeys[i] = red ? 0 : Zobrist.SIDE;
+            for (int cell = 0; cell < owners.length; cell++) {
+                if (owners[cell] >= 0) {
+                    cellKeys[i] ^= grid.cellKey(symmetries[i], cell, attacksAt[cell], owners[cell]);
+                }
+            }
+        }
+        addHand(redHand, Zobrist.RED);
+        addHand(blueHand, Zobrist.BLUE);
+    }
+
+    private void addHand(List<Card> hand, int owner) {
+        for (Card card : hand) {
+            updateHands(card.getPackedAttacks(), owner, 1);
+        }
+    }
+
+    /**
+     * Plays or takes back a move in the keys of every tracked image: the card leaves the mover's
+     * hand for the cell, the cards in the flipped directions change owner and the turn passes.
+     * Doing this twice leaves the keys as they were. With only the identity tracked, the game's
+     * own position key is used instead and there is nothing to do.
+     */
+    private void updateKeys(int cell, int attacks, int owner, int flips) {
+        if (symmetryCount == 1) {
+            return;
+        }
+        attacksAt[cell] = attacks;
+        for (int i = 0; i < symmetryCount; i++) {
+            int s = symmetries[i];
+            long key = cellKeys[i] ^ symmetry.cellKey(s, cell, attacks, owner) ^ Zobrist.SIDE;
+            for (int dir = 0; dir < 4; dir++) {
+                if ((flips & (1 << dir)) != 0) {
+                    int adj = neighbor(cell, dir);
+                    key ^= symmetry.cellKey(s, adj, attacksAt[adj], Zobrist.RED)
+                            ^ symmetry.cellKey(s, adj, attacksAt[adj], Zobrist.BLUE);
+                }
+            }
+            cellKeys[i] = key;
+        }
+    }
+
+    /**
+     * Adds a card to a hand in the keys of every tracked image, or takes it out.
+     */
+    private void updateHands(int attacks, int owner, int sign) {
+        for (int i = 0; i < symmetryCount; i++) {
+            handKeys[i] += sign * symmetry.handKey(symmetries[i], attacks, owner);
+        }
+    }
+
+    /**
+     * Returns the smallest key of the tracked images of the current position, and sets frame
+     * to the symmetry that gives it. With only the identity tracked, returns the game's position
+     * key combined with the hands' key, which needs no updating of cellKeys.
+     */
+    private long canonicalKey(Game game) {
+        if (symmetryCount == 1) {
+            frame = 0;
+            return game.getPositionKey() ^ handKeys[0];
+        }
+        long canonical = cellKeys[0] ^ handKeys[0];
+        frame = symmetries[0];
+        for (int i = 1; i < symmetryCount; i++) {
+            long key = cellKeys[i] ^ handKeys[i];
+            if (key < canonical) {
+                canonical = key;
+                frame = symmetries[i];
+            }
+        }
+        return canonical;
+    }
+
+    private int neighbor(int cell, int dir) {
+        switch (dir) {
+            case 0:
+                return cell - cols;
+            case 1:
+                return cell + cols;
+            case 2:
+                return cell + 1;
+            default:
+                return cell - 1;
+        }
+    }
+
+    private static boolean isRed(String color) {
+        return color.equalsIgnoreCase("Red");
+    }
+}
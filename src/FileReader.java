@@ -21,6 +21,33 @@ public class FileReader {
    * @throws IllegalArgumentException if the file contains invalid cell types
    */
   public static Grid loadGrid(String filePath) throws FileNotFoundException {
+    Cell[][] grid = loadLayout(filePath);
+    return new Grid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  /**
+   * Loads a grid configuration from a specified file path into a bitmask-backed grid.
+   * The file uses the same format as {@link #loadGrid(String)}.
+   *
+   * @param filePath the path to the grid configuration file
+   * @return a BitGrid representing the loaded grid
+   * @throws FileNotFoundException if the file is not found at the specified path
+   * @throws IllegalArgumentException if the file contains invalid cell types
+   */
+  public static BitGrid loadBitGrid(String filePath) throws FileNotFoundException {
+    Cell[][] grid = loadLayout(filePath);
+    return new BitGrid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  /**
+   * Reads the layout of a grid configuration file into an array of empty cells.
+   *
+   * @param filePath the path to the grid configuration file
+   * @return the cells of the grid, indexed by row and then column
+   * @throws FileNotFoundException if the file is not found at the specified path
+   * @throws IllegalArgumentException if the file contains invalid cell types
+   */
+  private static Cell[][] loadLayout(String filePath) throws FileNotFoundException {
     Scanner scanner = new Scanner(new File(filePath));
 
     int rows = scanner.nextInt();
@@ -44,18 +71,21 @@ public class FileReader {
     }
 
     scanner.close();
-    return new Grid(grid, rows, cols);
+    return grid;
   }
 
   /**
    * Loads a list of cards from a specified file path.
    * The file should contain one card per line, with each line containing a name and four
    * attack values (North, South, East, and West).
+   * Every card is registered with the {@link CardRegistry}, and cards with the same name and
+   * attack values are returned as the same instance.
    *
    * @param filePath the path to the card configuration file
    * @return a List of Card objects representing the loaded cards
    * @throws FileNotFoundException if the file is not found at the specified path
-   * @throws IllegalArgumentException if the file contains invalid card data format
+   * @throws IllegalArgumentException if the file contains invalid card data format or an
+   *                                  attack value outside 1 to A
    */
   public static List<Card> loadCards(String filePath) throws FileNotFoundException {
     Scanner scanner = new Scanner(new File(filePath));
@@ -72,7 +102,8 @@ public class FileReader {
       int east = parseAttackValue(cardData[3]);
       int west = parseAttackValue(cardData[4]);
 
-      cards.add(new Card(cardName, north, south, east, west));
+      Card card = new Card(cardName, north, south, east, west);
+      cards.add(CardRegistry.getCard(CardRegistry.intern(card)));
     }
 
     scanner.close();
@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+/**
+ * Keeps, for each player, the number of opponent cards every card in the player's hand would
+ * flip if it were played in every empty card cell. Cells are indexed row by row, and hand cards
+ * by their slot in the hand, see {@link Hand}, so a card leaving or returning to the hand never
+ * moves the rows of the others.
+ *
+ * <p>A matrix belongs to a game, which updates it after every move and every move taken back.
+ * A move only changes the counts of the empty cells next to the placed card and next to the
+ * cards it flipped, so only those columns are recomputed, together with the hand row of a card
+ * that returned to a hand. Questions such as which move flips the most cards then become
+ * a scan over the stored counts instead of a battle check for every card and cell.
+ * Changes made to the grid other than through the game are not seen by the matrix.
+ */
+public class FlipMatrix {
+  /**
+   * The count stored for a cell that is a hole or holds a card.
+   */
+  public static final int NOT_PLAYABLE = -1;
+
+  private final IntGrid grid;
+  private final Player[] players;
+  private final byte[][][] rows;
+  private final int cells;
+
+  /**
+   * Builds the matrix for the current position of a game.
+   *
+   * @param grid       the grid of the game
+   * @param redPlayer  the red player
+   * @param bluePlayer the blue player
+   */
+  FlipMatrix(IntGrid grid, Player redPlayer, Player bluePlayer) {
+    this.grid = grid;
+    this.players = new Player[]{redPlayer, bluePlayer};
+    this.cells = grid.getRows() * grid.getCols();
+    this.rows = new byte[2][][];
+    for (int p = 0; p < 2; p++) {
+      Hand hand = players[p].getSlots();
+      rows[p] = new byte[hand.getSlotCount()][];
+      for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+        rows[p][slot] = new byte[cells];
+        computeRow(p, slot);
+      }
+    }
+  }
+
+  /**
+   * Returns how many opponent cards a card in a player's hand would flip if played in a cell.
+   *
+   * @param player the player holding the card
+   * @param slot   the slot of the card in the player's hand
+   * @param cell   the index of the cell, row * cols + col
+   * @return the number of cards the move would flip, or {@link #NOT_PLAYABLE} if the cell is a
+   *         hole or already holds a card
+   * @throws IllegalArgumentException  if the player is not in the game
+   * @throws IndexOutOfBoundsException if the slot does not hold a card
+   */
+  public int getFlipCount(Player player, int slot, int cell) {
+    int p = indexOf(player);
+    if (!player.getSlots().isPresent(slot)) {
+      throw new IndexOutOfBoundsException("No card in hand slot " + slot);
+    }
+    return rows[p][slot][cell];
+  }
+
+  /**
+   * Returns the move of the given player that flips the most opponent cards. Ties go to the
+   * uppermost, then leftmost cell, and then to the card that comes first in the hand.
+   *
+   * @param player the player to move
+   * @return the move, encoded as by {@link Game#encodeMove(int, int)}, or -1 if the player has
+   *         no legal move
+   * @throws IllegalArgumentException if the player is not in the game, or the best move does
+   *                                  not fit in an encoded move
+   */
+  public int bestMove(Player player) {
+    int p = indexOf(player);
+    Hand hand = player.getSlots();
+    int best = -1;
+    int bestFlips = NOT_PLAYABLE;
+    for (int cell = 0; cell < cells; cell++) {
+      for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+        int flips = rows[p][slot][cell];
+        if (flips > bestFlips) {
+          bestFlips = flips;
+          best = Game.encodeMove(cell, slot);
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Updates the matrix after a card was placed and the battle phase ran. The row of the card
+   * that left the hand is no longer kept up to date, until the move is taken back.
+   *
+   * @param cell     the index of the cell the card was placed in
+   * @param flipMask the directions of the flipped cards, one bit per Direction ordinal
+   */
+  void movePlayed(int cell, int flipMask) {
+    refreshAround(cell, flipMask);
+  }
+
+  /**
+   * Updates the matrix after a move was taken back: the cell is empty again, the flipped cards
+   * are back with their owner and the card is back in the mover's hand.
+   *
+   * @param mover    the player whose move was taken back
+   * @param slot     the slot the card went back to in the mover's hand, or -1 if it was not
+   *                 in the hand
+   * @param cell     the index of the cell that was emptied
+   * @param flipMask the directions of the cards that were flipped back
+   */
+  void moveTakenBack(Player mover, int slot, int cell, int flipMask) {
+    if (slot >= 0) {
+      int p = indexOf(mover);
+      if (slot >= rows[p].length) {
+        rows[p] = Arrays.copyOf(rows[p], mover.getSlots().getSlotCount());
+      }
+      if (rows[p][slot] == null) {
+        rows[p][slot] = new byte[cells];
+      }
+      computeRow(p, slot);
+    }
+    refreshAround(cell, flipMask);
+  }
+
+  /**
+   * Recomputes the columns of a changed cell, of the cards flipped from it and of their
+   * neighbors, which are the only cells whose counts a move can change.
+   */
+  private void refreshAround(int cell, int flipMask) {
+    refreshNeighbors(cell);
+    for (int dir = 0; dir < 4; dir++) {
+      if ((flipMask & (1 << dir)) != 0) {
+        refreshNeighbors(grid.getNeighbor(cell, dir));
+      }
+    }
+  }
+
+  private void refreshNeighbors(int cell) {
+    refreshColumn(cell);
+    for (int dir = 0; dir < 4; dir++) {
+      int adj = grid.getNeighbor(cell, dir);
+      if (adj != NeighborTable.NONE) {
+        refreshColumn(adj);
+      }
+    }
+  }
+
+  private void refreshColumn(int cell) {
+    boolean playable = isPlayable(cell);
+    for (int p = 0; p < 2; p++) {
+      Hand hand = players[p].getSlots();
+      for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+        rows[p][slot][cell] = (byte) (playable ? count(p, slot, cell) : NOT_PLAYABLE);
+      }
+    }
+  }
+
+  private void computeRow(int p, int slot) {
+    byte[] row = rows[p][slot];
+    for (int cell = 0; cell < cells; cell++) {
+      row[cell] = (byte) (isPlayable(cell) ? count(p, slot, cell) : NOT_PLAYABLE);
+    }
+  }
+
+  private boolean isPlayable(int cell) {
+    return grid.isValidMove(cell / grid.getCols(), cell % grid.getCols());
+  }
+
+  /**
+   * Counts the opponent cards the given hand card would flip from the given empty cell,
+   * with the same rule as the battle phase.
+   */
+  private int count(int p, int slot, int cell) {
+    Player player = players[p];
+    int attacks = player.getCardInSlot(slot).getPackedAttacks();
+    int flips = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      int adj = grid.getNeighbor(cell, dir);
+      if (adj != NeighborTable.NONE) {
+        Player owner = grid.getOwnerAt(adj);
+        if (owner != null && owner != player
+                && Card.attack(attacks, dir) > Card.attack(
+                        CardRegistry.getAttacks(grid.getCardIdAt(adj)), Direction.opposite(dir))) {
+          flips++;
+        }
+      }
+    }
+    return flips;
+  }
+
+  private int indexOf(Player player) {
+    if (player == players[0]) {
+      return 0;
+    } else if (player == players[1]) {
+      return 1;
+    }
+    throw new IllegalArgumentException("Player is not in this game.");
+  }
+}
@@ -1,62 +1,537 @@
 import java.io.FileNotFoundException;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This class represents the Three Trios game, managing the grid, players, and the game flow.
+ * Every move is recorded on an undo stack of primitives, so search code can play a move with
+ * {@link #makeMove(int, int, int)} and take it back with {@link #unmakeMove()} without
+ * rebuilding the game. The game also keeps a {@link Zobrist} key of the position up to date
+ * with every move, for use by search caches.
+ *
+ * <p>After every turn played with {@link #playTurn(int, int, Card)} the game publishes an
+ * immutable {@link PositionSnapshot} of the new position through a volatile field, so views and
+ * other threads can read the game with {@link #getSnapshot()} while it is being played. Moves
+ * made with makeMove are search moves and are not published; taking back a published turn
+ * publishes the position before it again. The same turns are reported to every registered
+ * {@link GameListener} as a series of small events.
  */
 public class Game implements ThreeTriosModel {
-  private Grid grid;
+  private static final int SLOT_BITS = 12;
+
+  /**
+   * The number of hand slots an encoded move can name: slots run from 0 to one less than this.
+   */
+  public static final int MAX_MOVE_SLOTS = 1 << SLOT_BITS;
+
+  /**
+   * The number of cells an encoded move can name: cells run from 0 to one less than this.
+   */
+  public static final int MAX_MOVE_CELLS = 1 << (31 - SLOT_BITS);
+
+  private static final Metrics METRICS = Metrics.getDefault();
+  private static final Metrics.Counter TURNS = METRICS.counter("game.turns");
+  private static final Metrics.Counter FLIPS = METRICS.counter("game.flips");
+  private static final Metrics.Histogram TURN_NANOS = METRICS.histogram("game.playTurn.nanos");
+
+  private IntGrid grid;
   private final Player redPlayer;
   private final Player bluePlayer;
   private Player currentPlayer;
+  private int[] undoStack;
+  private Card[] undoCards;
+  private int undoSize;
+  private long positionKey;
+  private FlipMatrix flipMatrix;
+  private int[] orderBuffer = new int[0];
+  private final int[] bucketStarts = new int[7];
+  private volatile PositionSnapshot snapshot;
+  private volatile GameListener[] listeners = new GameListener[0];
 
   /**
    * Constructs a new Game object.
    *
-   * @param grid       the grid used
+   * @param grid       the grid used, either a Grid or a BitGrid
    * @param redPlayer  the red player
    * @param bluePlayer the blue player
    */
-  public Game(Grid grid, Player redPlayer, Player bluePlayer) {
+  public Game(IntGrid grid, Player redPlayer, Player bluePlayer) {
     this.grid = grid;
     this.redPlayer = redPlayer;
     this.bluePlayer = bluePlayer;
     this.currentPlayer = redPlayer;
+    resetUndoStack();
+  }
+
+  /**
+   * Returns an independent copy of this game in its current position, with its own grid and
+   * players, so it can be searched on another thread. The copy starts with an empty undo stack,
+   * so moves made before the copy cannot be taken back in it.
+   *
+   * @return a copy of this game
+   */
+  public Game copy() {
+    Player red = redPlayer.copy();
+    Player blue = bluePlayer.copy();
+    IntGrid gridCopy = grid.copy(owner -> owner == redPlayer ? red
+            : owner == bluePlayer ? blue : owner);
+    Game copy = new Game(gridCopy, red, blue);
+    copy.currentPlayer = currentPlayer == redPlayer ? red : blue;
+    copy.positionKey = positionKey;
+    copy.publishSnapshot();
+    return copy;
+  }
+
+  /**
+   * Encodes a move as a single int, for move lists in search code.
+   *
+   * @param cell the flat index (row * cols + col) of the cell to play in, below
+   *             {@link #MAX_MOVE_CELLS}
+   * @param slot the slot of the card in the current player's hand, see {@link Hand}, below
+   *             {@link #MAX_MOVE_SLOTS}
+   * @return the encoded move
+   * @throws IllegalArgumentException if the cell or the slot does not fit in an encoded move
+   */
+  public static int encodeMove(int cell, int slot) {
+    if (cell < 0 || cell >= MAX_MOVE_CELLS || slot < 0 || slot >= MAX_MOVE_SLOTS) {
+      throw new IllegalArgumentException("Move does not fit: cell " + cell + ", slot " + slot);
+    }
+    return cell << SLOT_BITS | slot;
+  }
+
+  /**
+   * Returns the flat cell index of an encoded move.
+   *
+   * @param move a move from {@link #encodeMove(int, int)}
+   * @return the cell index of the move
+   */
+  public static int moveCell(int move) {
+    return move >>> SLOT_BITS;
+  }
+
+  /**
+   * Returns the hand slot of an encoded move.
+   *
+   * @param move a move from {@link #encodeMove(int, int)}
+   * @return the hand slot of the move
+   */
+  public static int moveSlot(int move) {
+    return move & ((1 << SLOT_BITS) - 1);
+  }
+
+  /**
+   * Returns the number of card cells that do not yet hold a card. The grid keeps this count, so
+   * search code can read it at every node without looking at the cells.
+   *
+   * @return the number of empty card cells
+   */
+  public int getEmptyCardCellCount() {
+    return grid.getEmptyCardCellCount();
+  }
+
+  /**
+   * Returns the number of legal moves of the current player: one per empty card cell and card
+   * in hand. This is the room {@link #generateMoves(int[])} needs.
+   *
+   * @return the number of legal moves
+   * @throws IllegalStateException if the moves cannot be listed in an int array
+   */
+  public int getMoveCount() {
+    long count = (long) grid.getEmptyCardCellCount() * currentPlayer.getHandSize();
+    if (count > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Too many moves to list: " + count);
+    }
+    return (int) count;
+  }
+
+  /**
+   * Fills a buffer with every legal move of the current player, encoded as by
+   * {@link #encodeMove(int, int)}: cells in row-major order, and for each cell every card in the
+   * hand in slot order. Nothing is allocated, so search code can call this at every node with
+   * a buffer it keeps.
+   *
+   * @param moves the buffer to fill, with room for at least {@link #getMoveCount()} moves
+   * @return the number of moves written
+   * @throws IllegalArgumentException if the buffer is too small
+   * @throws IllegalStateException    if the grid or the hand is too large for encoded moves
+   */
+  public int generateMoves(int[] moves) {
+    Hand hand = currentPlayer.getSlots();
+    if (hand.getSlotCount() > MAX_MOVE_SLOTS
+            || (long) grid.getRows() * grid.getCols() > MAX_MOVE_CELLS) {
+      throw new IllegalStateException("The grid or the hand is too large for encoded moves.");
+    }
+    int total = getMoveCount();
+    if (moves.length < total) {
+      throw new IllegalArgumentException("Move buffer is too small.");
+    }
+    int rows = grid.getRows();
+    int cols = grid.getCols();
+    int count = 0;
+    for (int row = 0; row < rows && count < total; row++) {
+      for (int col = 0; col < cols; col++) {
+        if (grid.isValidMove(row, col)) {
+          int first = encodeMove(row * cols + col, 0);
+          for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+            moves[count++] = first | slot;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Reorders moves of the current player from most to fewest cards flipped, as counted by
+   * {@link #getMoveFlipCount(int)}, optionally with one given move first. Moves that flip
+   * as many cards keep their order. This is a counting sort through buffers the game keeps,
+   * so it allocates nothing once they have grown to the largest move list seen.
+   *
+   * @param moves     the moves to reorder
+   * @param count     the number of moves at the start of the array to reorder
+   * @param firstMove a move to put first if it is in the list, such as the best move found by an
+   *                  earlier search, or -1
+   */
+  public void orderByFlipGain(int[] moves, int count, int firstMove) {
+    if (orderBuffer.length < 2 * count) {
+      orderBuffer = new int[Math.max(2 * count, 2 * orderBuffer.length)];
+    }
+    // the first half of the buffer keeps the moves, the second half their buckets: 0 for the
+    // first move and 5 - flips for the others, so more flips sort earlier
+    int[] buffer = orderBuffer;
+    int[] starts = bucketStarts;
+    Arrays.fill(starts, 0);
+    for (int i = 0; i < count; i++) {
+      int move = moves[i];
+      int bucket = move == firstMove ? 0 : 5 - getMoveFlipCount(move);
+      buffer[i] = move;
+      buffer[count + i] = bucket;
+      starts[bucket + 1]++;
+    }
+    for (int b = 1; b < starts.length; b++) {
+      starts[b] += starts[b - 1];
+    }
+    for (int i = 0; i < count; i++) {
+      moves[starts[buffer[count + i]]++] = buffer[i];
+    }
   }
 
   /**
    * Handles a player's turn by placing a card on the grid and initiating the battle phase.
+   * Each turn is recorded as a {@link TurnEvent} when flight recording enables it, and counted
+   * in the {@link Metrics#getDefault() default metrics} when they are enabled.
    *
    * @param row  the row on the grid where the card is placed
    * @param col  the column on the grid where the card is placed
    * @param card the card to be placed
-   * @throws IllegalArgumentException if the move is invalid
+   * @throws IllegalArgumentException if the move is invalid or the player's hand is empty
    */
   public void playTurn(int row, int col, Card card) {
+    TurnEvent event = new TurnEvent();
+    event.begin();
+    long start = METRICS.isEnabled() ? System.nanoTime() : 0;
     if (!grid.isValidMove(row, col)) {
       throw new IllegalArgumentException("Invalid move");
     }
+    if (currentPlayer.getHandSize() == 0) {
+      throw new IllegalArgumentException("Hand is empty");
+    }
+    Hand hand = currentPlayer.getSlots();
+    int slot = hand.find(card);
+    int handIndex = slot < 0 ? -1 : hand.indexOf(slot);
+    Player mover = currentPlayer;
+    int cell = row * grid.getCols() + col;
+    int flips = applyMove(row, col, card, slot);
+    PositionSnapshot last = snapshot;
+    if (last.getMoveCount() == undoSize - 1) {
+      snapshot = last.afterMove(grid, redPlayer, bluePlayer, mover, cell, flips, positionKey);
+      GameListener[] targets = listeners;
+      if (targets.length > 0) {
+        fireTurnPlayed(targets, mover, handIndex, cell, card, flips);
+      }
+    } else {
+      publishSnapshot();
+    }
+
+    if (event.shouldCommit()) {
+      event.player = mover.getColor();
+      event.row = row;
+      event.col = col;
+      event.card = card.getName();
+      event.flips = Integer.bitCount(flips);
+      event.commit();
+    }
+    if (METRICS.isEnabled()) {
+      TURN_NANOS.record(System.nanoTime() - start);
+      TURNS.increment();
+      FLIPS.add(Integer.bitCount(flips));
+    }
+  }
+
+  /**
+   * Plays the card at the given position in the current player's hand, exactly like playTurn,
+   * and records the move so that it can be taken back with {@link #unmakeMove()}. The position
+   * is turned into a slot of the hand first, which costs a pass over the hand after every move;
+   * search code plays encoded moves with {@link #makeMove(int)} instead.
+   *
+   * @param row       the row on the grid where the card is placed
+   * @param col       the column on the grid where the card is placed
+   * @param handIndex the position of the card in the current player's hand
+   * @return the number of opponent cards flipped by the move
+   * @throws IllegalArgumentException  if the move is invalid
+   * @throws IndexOutOfBoundsException if the hand index is not a position in the hand
+   */
+  public int makeMove(int row, int col, int handIndex) {
+    if (!grid.isValidMove(row, col)) {
+      throw new IllegalArgumentException("Invalid move");
+    }
+    Hand hand = currentPlayer.getSlots();
+    int slot = hand.slotOf(handIndex);
+    return Integer.bitCount(applyMove(row, col, hand.getCard(slot), slot));
+  }
+
+  /**
+   * Plays an encoded move, exactly like playTurn, and records it so that it can be taken back
+   * with {@link #unmakeMove()}. The card is taken straight out of its slot, so this does no
+   * work that grows with the hand.
+   *
+   * @param move a move of the current player, encoded as by {@link #encodeMove(int, int)}
+   * @return the number of opponent cards flipped by the move
+   * @throws IllegalArgumentException if the cell is not a legal move or the slot does not hold
+   *                                  a card
+   */
+  public int makeMove(int move) {
+    int cols = grid.getCols();
+    int row = moveCell(move) / cols;
+    int col = moveCell(move) % cols;
+    if (!grid.isValidMove(row, col)) {
+      throw new IllegalArgumentException("Invalid move");
+    }
+    Hand hand = currentPlayer.getSlots();
+    int slot = moveSlot(move);
+    if (!hand.isPresent(slot)) {
+      throw new IllegalArgumentException("Slot " + slot + " does not hold a card.");
+    }
+    return Integer.bitCount(applyMove(row, col, hand.getCard(slot), slot));
+  }
+
+  /**
+   * Takes back the most recent move, whether it was played with makeMove or playTurn.
+   * The cards flipped by the move are returned to the opponent, the placed card goes back to
+   * its slot in the mover's hand and the mover becomes the current player again.
+   *
+   * @throws IllegalStateException if there is no move to take back
+   */
+  public void unmakeMove() {
+    if (undoSize == 0) {
+      throw new IllegalStateException("No move to undo.");
+    }
+    undoSize--;
+    int cell = undoStack[2 * undoSize];
+    int info = undoStack[2 * undoSize + 1];
+    Card card = undoCards[undoSize];
+    undoCards[undoSize] = null;
+
+    Player opponent = currentPlayer;
+    Player mover = opponent == redPlayer ? bluePlayer : redPlayer;
+    for (int dir = 0; dir < 4; dir++) {
+      if ((info & (1 << dir)) != 0) {
+        int adj = grid.getNeighbor(cell, dir);
+        positionKey ^= Zobrist.flip(adj, grid.getCardIdAt(adj));
+        grid.flipAt(adj, opponent);
+      }
+    }
+    grid.removeCard(cell / grid.getCols(), cell % grid.getCols());
+    positionKey ^= Zobrist.key(cell, CardRegistry.idOf(card), ownerIndex(mover)) ^ Zobrist.SIDE;
+    int slot = (info >> 4) - 1;
+    if (slot >= 0) {
+      mover.getSlots().restore(slot);
+    }
+    if (flipMatrix != null) {
+      flipMatrix.moveTakenBack(mover, slot, cell, info & 0xF);
+    }
+    currentPlayer = mover;
+    PositionSnapshot last = snapshot;
+    if (last.getMoveCount() == undoSize + 1) {
+      snapshot = last.beforeMove(grid, redPlayer, bluePlayer, mover, cell, info & 0xF,
+              positionKey);
+      GameListener[] targets = listeners;
+      if (targets.length > 0) {
+        int handIndex = slot < 0 ? -1 : mover.getSlots().indexOf(slot);
+        fireTurnTakenBack(targets, mover, handIndex, cell, card, info & 0xF);
+      }
+    } else if (undoSize < last.getMoveCount()) {
+      publishSnapshot();
+    }
+  }
+
+  /**
+   * Places a card for the current player, runs the battle phase, records the move on the undo
+   * stack and passes the turn.
+   *
+   * @param row  the row on the grid where the card is placed
+   * @param col  the column on the grid where the card is placed
+   * @param card the card to be placed
+   * @param slot the slot of the card in the current player's hand, or -1 if the card is not in
+   *             the hand
+   * @return the directions of the flipped cards, one bit per Direction ordinal
+   */
+  private int applyMove(int row, int col, Card card, int slot) {
     grid.placeCard(row, col, card, currentPlayer);
-    currentPlayer.removeCardFromHand(card);
-    battlePhase(row, col);
+    if (slot >= 0) {
+      currentPlayer.getSlots().remove(slot);
+    }
+    int cell = row * grid.getCols() + col;
+    positionKey ^= Zobrist.key(cell, CardRegistry.idOf(card), ownerIndex(currentPlayer))
+            ^ Zobrist.SIDE;
+    int flips = battlePhase(cell, card);
+
+    if (2 * undoSize == undoStack.length) {
+      undoStack = Arrays.copyOf(undoStack, undoStack.length * 2 + 2);
+      undoCards = Arrays.copyOf(undoCards, undoCards.length * 2 + 1);
+    }
+    undoStack[2 * undoSize] = cell;
+    undoStack[2 * undoSize + 1] = (slot + 1) << 4 | flips;
+    undoCards[undoSize] = card;
+    undoSize++;
+    if (flipMatrix != null) {
+      flipMatrix.movePlayed(cell, flips);
+    }
 
     if (currentPlayer == redPlayer) {
       currentPlayer = bluePlayer;
     } else {
       currentPlayer = redPlayer;
     }
+    return flips;
+  }
+
+  /**
+   * Sizes the undo stack for a full game on the current grid and empties it, and computes the
+   * position key of the cards already on the grid.
+   */
+  private void resetUndoStack() {
+    int moves = grid.getRows() * grid.getCols();
+    this.undoStack = new int[2 * moves];
+    this.undoCards = new Card[moves];
+    this.undoSize = 0;
+    this.positionKey = currentPlayer == bluePlayer ? Zobrist.SIDE : 0;
+    for (int row = 0; row < grid.getRows(); row++) {
+      for (int col = 0; col < grid.getCols(); col++) {
+        Cell cell = grid.getCell(row, col);
+        if (cell.isCardCell() && !cell.isEmpty()
+                && (cell.getOwner() == redPlayer || cell.getOwner() == bluePlayer)) {
+          positionKey ^= Zobrist.key(row * grid.getCols() + col,
+                  CardRegistry.idOf(cell.getCard()), ownerIndex(cell.getOwner()));
+        }
+      }
+    }
+    publishSnapshot();
+  }
+
+  /**
+   * Publishes a snapshot of the whole current position and tells the listeners to read it.
+   */
+  private void publishSnapshot() {
+    PositionSnapshot reset = PositionSnapshot.of(grid, redPlayer, bluePlayer,
+            currentPlayer == redPlayer, undoSize, positionKey);
+    snapshot = reset;
+    for (GameListener listener : listeners) {
+      listener.positionReset(reset);
+    }
+  }
+
+  /**
+   * Registers a listener to be told about every turn played or taken back from now on.
+   *
+   * @param listener the listener
+   */
+  @Override
+  public synchronized void addGameListener(GameListener listener) {
+    Objects.requireNonNull(listener);
+    GameListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+    updated[listeners.length] = listener;
+    listeners = updated;
+  }
+
+  /**
+   * Unregisters a listener. Does nothing if the listener is not registered.
+   *
+   * @param listener the listener
+   */
+  @Override
+  public synchronized void removeGameListener(GameListener listener) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i] == listener) {
+        GameListener[] updated = new GameListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, updated, 0, i);
+        System.arraycopy(listeners, i + 1, updated, i, updated.length - i);
+        listeners = updated;
+        return;
+      }
+    }
+  }
+
+  private void fireTurnPlayed(GameListener[] targets, Player mover, int handIndex, int cell,
+                              Card card, int flips) {
+    for (GameListener listener : targets) {
+      if (handIndex >= 0) {
+        listener.handCardRemoved(mover.getColor(), handIndex);
+      }
+      listener.cardPlaced(cell, card, mover.getColor());
+      if (flips != 0) {
+        listener.cellsFlipped(flippedCells(cell, flips), mover.getColor());
+      }
+      listener.turnChanged(currentPlayer.getColor());
+    }
+  }
+
+  private void fireTurnTakenBack(GameListener[] targets, Player mover, int handIndex, int cell,
+                                 Card card, int flips) {
+    Player opponent = mover == redPlayer ? bluePlayer : redPlayer;
+    for (GameListener listener : targets) {
+      if (flips != 0) {
+        listener.cellsFlipped(flippedCells(cell, flips), opponent.getColor());
+      }
+      listener.cardRemoved(cell);
+      if (handIndex >= 0) {
+        listener.handCardRestored(mover.getColor(), handIndex, card);
+      }
+      listener.turnChanged(mover.getColor());
+    }
+  }
+
+  /**
+   * Returns the indices of the cells next to a cell in the directions of a flip mask.
+   */
+  private int[] flippedCells(int cell, int flips) {
+    int[] cells = new int[Integer.bitCount(flips)];
+    int count = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      if ((flips & (1 << dir)) != 0) {
+        cells[count++] = grid.getNeighbor(cell, dir);
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Returns the Zobrist owner value of a player.
+   */
+  private int ownerIndex(Player player) {
+    return player == redPlayer ? Zobrist.RED : Zobrist.BLUE;
   }
 
   /**
    * Executes the battle phase after a card is placed on the grid.
    * The placed card battles any opponent cards in adjacent cells, potentially flipping ownership.
    *
-   * @param row the row of the placed card
-   * @param col the column of the placed card
+   * @param cell       the index of the cell of the placed card
+   * @param placedCard the card that was placed
+   * @return the directions of the flipped cards, one bit per Direction ordinal
    */
-  private void battlePhase(int row, int col) {
-    Card placedCard = grid.getCell(row, col).getCard();
+  private int battlePhase(int cell, Card placedCard) {
     Player opponent;
     if (currentPlayer == redPlayer) {
       opponent = bluePlayer;
@@ -64,10 +539,15 @@ public class Game implements ThreeTriosModel {
       opponent = redPlayer;
     }
 
-    checkBattle(row - 1, col, placedCard, Direction.NORTH, opponent);
-    checkBattle(row + 1, col, placedCard, Direction.SOUTH, opponent);
-    checkBattle(row, col - 1, placedCard, Direction.WEST, opponent);
-    checkBattle(row, col + 1, placedCard, Direction.EAST, opponent);
+    int attacks = placedCard.getPackedAttacks();
+    int flips = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      int adj = grid.getNeighbor(cell, dir);
+      if (adj != NeighborTable.NONE && checkBattle(adj, attacks, dir, opponent)) {
+        flips |= 1 << dir;
+      }
+    }
+    return flips;
   }
 
   /**
@@ -76,41 +556,24 @@ public class Game implements ThreeTriosModel {
    * If the placed card’s attack value in the specified direction is higher,
    * the opponent's card is flipped.
    *
-   * @param adjRow      the row of the adjacent cell
-   * @param adjCol      the column of the adjacent cell
-   * @param placedCard  the card recently placed by the current player
-   * @param direction   the direction of the adjacent cell relative to the placed card
+   * @param adj         the index of the adjacent card cell
+   * @param attacks     the packed attack values of the card recently placed by the current player
+   * @param direction   the ordinal of the direction of the adjacent cell relative to the placed card
    * @param opponent    the opposing player
+   * @return true if the adjacent card was flipped
    */
-  private void checkBattle(int adjRow, int adjCol, Card placedCard, Direction direction,
-                           Player opponent) {
-    if (grid.isValidMove(adjRow, adjCol)) {
-      Cell adjCell = grid.getCell(adjRow, adjCol);
-      if (adjCell.getOwner() == opponent) {
-        Card adjCard = adjCell.getCard();
-        Direction opposite = getOppositeDirection(direction);
-        if (placedCard.getAttackValue(direction) > adjCard.getAttackValue(opposite)) {
-          adjCell.flip(currentPlayer);
-        }
-      }
+  private boolean checkBattle(int adj, int attacks, int direction, Player opponent) {
+    if (grid.getOwnerAt(adj) != opponent) {
+      return false;
     }
-  }
-
-  /**
-   * Returns the opposite direction of the specified direction.
-   *
-   * @param dir the direction for which to get the opposite
-   * @return the opposite direction
-   * @throws IllegalArgumentException if the specified direction is invalid
-   */
-  private Direction getOppositeDirection(Direction dir) {
-    switch (dir) {
-      case NORTH: return Direction.SOUTH;
-      case SOUTH: return Direction.NORTH;
-      case EAST: return Direction.WEST;
-      case WEST: return Direction.EAST;
-      default: throw new IllegalArgumentException("Invalid direction.");
+    int adjId = grid.getCardIdAt(adj);
+    if (Card.attack(attacks, direction)
+            > Card.attack(CardRegistry.getAttacks(adjId), Direction.opposite(direction))) {
+      positionKey ^= Zobrist.flip(adj, adjId);
+      grid.flipAt(adj, currentPlayer);
+      return true;
     }
+    return false;
   }
 
   /**
@@ -123,21 +586,9 @@ public class Game implements ThreeTriosModel {
    * @return the player with the most owned cards, or null if there is a tie
    */
   public static Player checkWinner(IntGrid grid, IntPlayer redPlayer, IntPlayer bluePlayer) {
-    int redCount = redPlayer.getHand().size();
-    int blueCount = bluePlayer.getHand().size();
-
-    for (int i = 0; i < grid.getRows(); i++) {
-      for (int j = 0; j < grid.getCols(); j++) {
-        Cell cell = grid.getCell(i, j);
-        if (cell.isCardCell() && !cell.isEmpty()) {
-          if (cell.getOwner() == redPlayer) {
-            redCount++;
-          } else if (cell.getOwner() == bluePlayer) {
-            blueCount++;
-          }
-        }
-      }
-    }
+    int redCount = redPlayer.getHand().size() + grid.getOwnedCount(redPlayer);
+    int blueCount = bluePlayer.getHand().size() + grid.getOwnedCount(bluePlayer);
+
     if (redCount > blueCount) {
       return (Player) redPlayer;
     } else if (blueCount > redCount) {
@@ -180,41 +631,54 @@ public class Game implements ThreeTriosModel {
 
   /**
    * Checks if the game is over by verifying that all card cells are filled.
+   * This is a constant-time check against the grid's count of empty card cells.
    *
    * @return true if the game is over (i.e., all card cells are filled), false otherwise.
    */
   public boolean isGameOver() {
-    for (int row = 0; row < grid.getRows(); row++) {
-      for (int col = 0; col < grid.getCols(); col++) {
-        Cell cell = grid.getCell(row, col);
-        if (cell.isCardCell() && cell.isEmpty()) {
-          return false;
-        }
-      }
-    }
-    return true;
+    return grid.getEmptyCardCellCount() == 0;
   }
 
   /**
-   * @param color
-   * @return
+   * Returns the score of the player with the given color: the number of cells the player owns on
+   * the grid plus the number of cards left in the player's hand, as counted by checkWinner.
+   *
+   * @param color the color of the player, e.g. "Red" or "Blue"
+   * @return the player's current score
+   * @throws IllegalArgumentException if no player has the given color
    */
   @Override
   public int getPlayerScore(String color) {
-    return 0;
+    Player player;
+    if (redPlayer.getColor().equalsIgnoreCase(color)) {
+      player = redPlayer;
+    } else if (bluePlayer.getColor().equalsIgnoreCase(color)) {
+      player = bluePlayer;
+    } else {
+      throw new IllegalArgumentException("Invalid player color.");
+    }
+    return grid.getOwnedCount(player) + player.getHand().size();
   }
 
   /**
    * Sets up the game by loading grid and card configurations from file paths.
+   * The files are read through the {@link ConfigCache}, so setting up many games from the same
+   * files only parses them once; each game still gets its own grid. The red player is dealt the
+   * first half of the deck and the blue player the second half.
    *
    * @param gridFilePath path to the grid configuration file
    * @param cardFilePath path to the card configuration file
+   * @throws FileNotFoundException if either file is not found
    */
   public void setupGame(String gridFilePath, String cardFilePath) throws FileNotFoundException {
-    this.grid = FileReader.loadGrid(gridFilePath);
-    List<Card> cards = FileReader.loadCards(cardFilePath);
-    redPlayer.setHand(Collections.singletonList((Card) cards.subList(0, cards.size() / 2)));
-    bluePlayer.setHand(Collections.singletonList((Card) cards.subList(cards.size() / 2, cards.size())));
+    ConfigCache cache = ConfigCache.getDefault();
+    this.grid = cache.getGrid(gridFilePath);
+    this.flipMatrix = null;
+    List<Card> cards = cache.getCards(cardFilePath);
+    redPlayer.setHand(cards.subList(0, cards.size() / 2));
+    bluePlayer.setHand(cards.subList(cards.size() / 2, cards.size()));
+    this.currentPlayer = redPlayer;
+    resetUndoStack();
   }
 
   /**
@@ -222,31 +686,38 @@ public class Game implements ThreeTriosModel {
    * at the specified coordinate.
    *
    * @param cardIndex the index of the card in the player's hand
-   * @param row the row coordinate on the grid
-   * @param col the column coordinate on the grid
+   * @param row the row coordinate on the grid, which must lie on the grid
+   * @param col the column coordinate on the grid, which must lie on the grid
    * @return the number of opponent cards that would be flipped
    */
   public int getFlipCount(int cardIndex, int row, int col) {
-    Card card = currentPlayer.getHand().get(cardIndex);
-    int flipCount = 0;
-
-    Direction[] directions = {Direction.NORTH, Direction.SOUTH, Direction.WEST, Direction.EAST};
-    int[][] directionOffsets = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
-
-    for (int i = 0; i < directions.length; i++) {
-      Direction direction = directions[i];
-      int newRow = row + directionOffsets[i][0];
-      int newCol = col + directionOffsets[i][1];
+    return countFlips(currentPlayer.getCardAt(cardIndex).getPackedAttacks(),
+            row * grid.getCols() + col);
+  }
 
-      if (newRow >= 0 && newRow < grid.getDimensions()[0] && newCol >= 0 && newCol < grid.getDimensions()[1]) {
-        Cell adjacentCell = grid.getCellContents(newRow, newCol);
+  /**
+   * Returns how many cards an encoded move of the current player would flip, as
+   * {@link #getFlipCount(int, int, int)} does for a position in the hand.
+   *
+   * @param move a move of the current player, encoded as by {@link #encodeMove(int, int)}
+   * @return the number of opponent cards that would be flipped
+   */
+  public int getMoveFlipCount(int move) {
+    return countFlips(currentPlayer.getCardInSlot(moveSlot(move)).getPackedAttacks(),
+            moveCell(move));
+  }
 
-        if (adjacentCell != null && !adjacentCell.getOwner().equals(currentPlayer.getColor())) {
-          Card opponentCard = adjacentCell.getCard();
-          Direction oppositeDirection = getOppositeDirection(direction);
-          int opponentDefense = opponentCard.getAttackValue(oppositeDirection);
+  private int countFlips(int attacks, int cell) {
+    int flipCount = 0;
 
-          if (card.getAttackValue(direction) > opponentDefense) {
+    for (int dir = 0; dir < 4; dir++) {
+      int adj = grid.getNeighbor(cell, dir);
+      if (adj != NeighborTable.NONE) {
+        Player owner = grid.getOwnerAt(adj);
+        if (owner != null && owner != currentPlayer) {
+          int opponentDefense = Card.attack(CardRegistry.getAttacks(grid.getCardIdAt(adj)),
+                  Direction.opposite(dir));
+          if (Card.attack(attacks, dir) > opponentDefense) {
             flipCount++;
           }
         }
@@ -256,9 +727,140 @@ public class Game implements ThreeTriosModel {
   }
 
   /**
-   * Returns the list of cards in the red player's hand.
+   * Returns the flip matrix of this game, building it from the current position on first use.
+   * From then on every move played or taken back keeps it up to date, so it always answers
+   * the same as {@link #getFlipCount(int, int, int)} for every hand card and empty cell.
+   *
+   * @return the flip matrix of this game
+   */
+  public FlipMatrix getFlipMatrix() {
+    if (flipMatrix == null) {
+      flipMatrix = new FlipMatrix(grid, redPlayer, bluePlayer);
+    }
+    return flipMatrix;
+  }
+
+  /**
+   * Returns the snapshot of the position after the most recent turn. The snapshot never changes,
+   * so it can be read on any thread without locking, while the game goes on.
+   *
+   * @return the latest published snapshot
+   */
+  @Override
+  public PositionSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Returns the player whose turn it is.
+   *
+   * @return the current player
+   */
+  public Player getCurrentPlayer() {
+    return currentPlayer;
+  }
+
+  /**
+   * Returns the red player's score minus the blue player's score, with scores counted as in
+   * checkWinner. The final margin is positive when red wins and negative when blue wins.
+   *
+   * @return the current score margin from red's point of view
+   */
+  public int getMargin() {
+    return grid.getOwnedCount(redPlayer) + redPlayer.getHandSize()
+            - grid.getOwnedCount(bluePlayer) - bluePlayer.getHandSize();
+  }
+
+  /**
+   * Returns the most recent move that can still be taken back, whether it was played with
+   * makeMove or playTurn.
+   *
+   * @return the move, encoded as by {@link #encodeMove(int, int)} with the slot the card had in
+   *         the mover's hand, or -1 if there is no such move, the card was not in the hand or
+   *         its slot does not fit in an encoded move
+   */
+  public int getLastMove() {
+    if (undoSize == 0) {
+      return -1;
+    }
+    int slot = (undoStack[2 * undoSize - 1] >> 4) - 1;
+    return slot < 0 || slot >= MAX_MOVE_SLOTS ? -1
+            : encodeMove(undoStack[2 * undoSize - 2], slot);
+  }
+
+  /**
+   * Returns the Zobrist key of the current position, kept up to date by every move played
+   * through this game. Cards placed directly on the grid are not reflected in the key.
+   *
+   * @return the position key
+   */
+  public long getPositionKey() {
+    return positionKey;
+  }
+
+  /**
+   * Returns a key shared by this position and all of its images under the symmetries of the
+   * grid, see {@link GridSymmetry}: the smallest of the keys of the images, each made of the
+   * turned cards on the grid and in both hands and the player to move. Positions that are
+   * rotations or reflections of each other get the same canonical key, so search caches and
+   * opening books can store them once. Unlike the position key, this is computed from the whole
+   * grid on every call.
+   *
+   * @return the canonical key of the position
+   */
+  public long getCanonicalKey() {
+    GridSymmetry symmetry = grid.getSymmetry();
+    int size = grid.getRows() * grid.getCols();
+    long canonical = 0;
+    for (int s = 0; s < symmetry.size(); s++) {
+      long key = currentPlayer == bluePlayer ? Zobrist.SIDE : 0;
+      for (int cell = 0; cell < size; cell++) {
+        int id = grid.getCardIdAt(cell);
+        Player owner = grid.getOwnerAt(cell);
+        if (id >= 0 && (owner == redPlayer || owner == bluePlayer)) {
+          key ^= symmetry.cellKey(s, cell, CardRegistry.getAttacks(id), ownerIndex(owner));
+        }
+      }
+      long hands = 0;
+      Hand red = redPlayer.getSlots();
+      for (int i = red.nextSlot(0); i >= 0; i = red.nextSlot(i + 1)) {
+        hands += symmetry.handKey(s, red.getCard(i).getPackedAttacks(), Zobrist.RED);
+      }
+      Hand blue = bluePlayer.getSlots();
+      for (int i = blue.nextSlot(0); i >= 0; i = blue.nextSlot(i + 1)) {
+        hands += symmetry.handKey(s, blue.getCard(i).getPackedAttacks(), Zobrist.BLUE);
+      }
+      key ^= hands;
+      canonical = s == 0 ? key : Math.min(canonical, key);
+    }
+    return canonical;
+  }
+
+  /**
+   * Returns the symmetries of this game's grid.
+   *
+   * @return the rotations and reflections that map the grid's layout onto itself
+   */
+  public GridSymmetry getSymmetry() {
+    return grid.getSymmetry();
+  }
+
+  /**
+   * Returns the cards flipped by the most recent move that can still be taken back.
+   *
+   * @return the directions of the flipped cards from the cell played, one bit per Direction
+   *         ordinal, or 0 if there is no such move
+   */
+  public int getLastFlips() {
+    return undoSize == 0 ? 0 : undoStack[2 * undoSize - 1] & 0xF;
+  }
+
+  /**
+   * Returns the list of cards in the red player's hand. The list is a read-only view, not a
+   * copy, so it always shows the current hand; like the hand itself, it must only be read on
+   * the thread playing the game. Other threads read the hands from {@link #getSnapshot()}.
    *
-   * @return a list of objects representing the red player's hand
+   * @return an unmodifiable live view of the red player's hand
    */
   @Override
   public List<Card> getRedPlayerHand() {
@@ -266,9 +868,11 @@ public class Game implements ThreeTriosModel {
   }
 
   /**
-   * Returns the list of cards in the blue player's hand.
+   * Returns the list of cards in the blue player's hand. The list is a read-only view, not a
+   * copy, so it always shows the current hand; like the hand itself, it must only be read on
+   * the thread playing the game. Other threads read the hands from {@link #getSnapshot()}.
    *
-   * @return a list of objects representing the blue player's hand
+   * @return an unmodifiable live view of the blue player's hand
    */
   @Override
   public List<Card> getBluePlayerHand() {
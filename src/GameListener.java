@@ -0,0 +1,80 @@
+/**
+ * Receives the changes a {@link Game} makes to its position, one small event at a time, so an
+ * observer such as a view can update only what changed instead of redrawing the whole game.
+ * Cells are given by their index, row * cols + col, and players by their color.
+ *
+ * <p>Events are sent for turns played with {@link Game#playTurn(int, int, Card)} and for those
+ * turns being taken back, in the order the changes happen, on the thread that changed the game.
+ * Search moves made with makeMove are not reported. When the game changes in a way that is not
+ * a single turn, such as a new setup, {@link #positionReset(PositionSnapshot)} is sent
+ * instead with the whole new position.
+ * Every method does nothing by default.
+ */
+public interface GameListener {
+
+  /**
+   * Called when a card is placed on the grid.
+   *
+   * @param cell  the index of the cell the card was placed in
+   * @param card  the card placed
+   * @param owner the color of the player who owns the card
+   */
+  default void cardPlaced(int cell, Card card, String owner) {
+  }
+
+  /**
+   * Called when cards on the grid change owner, after a battle or when a battle is taken back.
+   *
+   * @param cells    the indices of the cells whose cards changed owner; the array belongs to the
+   *                 listener
+   * @param newOwner the color of the player who now owns the cards
+   */
+  default void cellsFlipped(int[] cells, String newOwner) {
+  }
+
+  /**
+   * Called when a card is taken off the grid because its turn was taken back.
+   *
+   * @param cell the index of the cell that is empty again
+   */
+  default void cardRemoved(int cell) {
+  }
+
+  /**
+   * Called when a card leaves a player's hand. The cards after it move up one position.
+   *
+   * @param player    the color of the player
+   * @param handIndex the position the card had in the hand
+   */
+  default void handCardRemoved(String player, int handIndex) {
+  }
+
+  /**
+   * Called when a card goes back into a player's hand because its turn was taken back.
+   * The cards from the given position on move down one position.
+   *
+   * @param player    the color of the player
+   * @param handIndex the position of the card in the hand
+   * @param card      the card
+   */
+  default void handCardRestored(String player, int handIndex, Card card) {
+  }
+
+  /**
+   * Called when the player to move changes.
+   *
+   * @param player the color of the player who moves next
+   */
+  default void turnChanged(String player) {
+  }
+
+  /**
+   * Called when the position changed in a way not described by the other events. Events for
+   * turns played after the reset follow this one, so a listener that redraws from the given
+   * snapshot, rather than from the model's latest one, stays in step with them.
+   *
+   * @param snapshot the position right after the reset
+   */
+  default void positionReset(PositionSnapshot snapshot) {
+  }
+}
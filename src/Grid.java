@@ -1,12 +1,26 @@
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
 /**
  * Represents the grid used in the game, consisting of cells that can be either card cells
  * or holes. This class provides methods to manage and interact with the grid's cells,
  * checking for valid moves, placing cards, and retrieving grid dimensions and cell details.
+ * The grid keeps live counts of its empty card cells and of the cells owned by each player,
+ * which its cells update whenever a card is placed or flipped.
+ * The cells are also kept in a flat array indexed by row * cols + col, together with a table of
+ * the neighbors of every cell, so battles can walk from a cell to its neighbors without any
+ * bounds checks.
  */
 public class Grid implements IntGrid {
   private final Cell[][] grid;
+  private final Cell[] cells;
+  private final int[] neighbors;
+  private final GridSymmetry symmetry;
   private final int rows;
   private final int cols;
+  private int emptyCardCells;
+  private Player[] owners;
+  private int[] ownedCounts;
 
   /**
    * Constructs a new Grid object with the specified layout and dimensions.
@@ -34,6 +48,57 @@ public class Grid implements IntGrid {
     this.grid = grid;
     this.rows = rows;
     this.cols = cols;
+    this.emptyCardCells = cards;
+    this.owners = new Player[2];
+    this.ownedCounts = new int[2];
+    this.cells = new Cell[rows * cols];
+    boolean[] cardCells = new boolean[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        Cell cell = grid[i][j];
+        cells[i * cols + j] = cell;
+        cardCells[i * cols + j] = cell.isCardCell();
+        if (cell.isCardCell() && !cell.isEmpty()) {
+          cellChanged(false, null, true, cell.getOwner());
+        }
+        cell.attach(this);
+      }
+    }
+    this.neighbors = NeighborTable.build(cardCells, rows, cols);
+    this.symmetry = GridSymmetry.of(cardCells, rows, cols);
+  }
+
+  /**
+   * Constructs a copy of a grid with new cells holding the same cards, owned by the players the
+   * given function maps the owners to. The neighbor table and symmetries never change once a grid
+   * is built, so the copy shares them instead of building them again.
+   */
+  private Grid(Grid source, UnaryOperator<Player> owners) {
+    this.rows = source.rows;
+    this.cols = source.cols;
+    this.neighbors = source.neighbors;
+    this.symmetry = source.symmetry;
+    this.emptyCardCells = source.emptyCardCells;
+    this.owners = new Player[source.owners.length];
+    for (int i = 0; i < this.owners.length && source.owners[i] != null; i++) {
+      this.owners[i] = owners.apply(source.owners[i]);
+    }
+    this.ownedCounts = source.ownedCounts.clone();
+    this.grid = new Cell[rows][cols];
+    this.cells = new Cell[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        Cell from = source.grid[i][j];
+        Cell cell = new Cell(from.isCardCell());
+        if (!from.isEmpty()) {
+          cell.placeCard(from.getCard(), owners.apply(from.getOwner()));
+        }
+        // attached after the card is placed, since the counters were copied already
+        cell.attach(this);
+        grid[i][j] = cell;
+        cells[i * cols + j] = cell;
+      }
+    }
   }
 
   public Cell getCell(int row, int col) {
@@ -72,6 +137,20 @@ public class Grid implements IntGrid {
     grid[row][col].placeCard(card, player);
   }
 
+  @Override
+  public void removeCard(int row, int col) {
+    Cell cell = getCell(row, col);
+    if (!cell.isCardCell() || cell.isEmpty()) {
+      throw new IllegalArgumentException("No card to remove.");
+    }
+    cell.placeCard(null, null);
+  }
+
+  @Override
+  public Grid copy(UnaryOperator<Player> owners) {
+    return new Grid(this, owners);
+  }
+
   public int[] getDimensions() {
     return new int[]{this.rows, this.cols};
   }
@@ -82,4 +161,82 @@ public class Grid implements IntGrid {
     }
     return grid[row][col];
   }
+
+  @Override
+  public int getEmptyCardCellCount() {
+    return emptyCardCells;
+  }
+
+  @Override
+  public int getOwnedCount(IntPlayer player) {
+    for (int i = 0; i < owners.length && owners[i] != null; i++) {
+      if (owners[i] == player) {
+        return ownedCounts[i];
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public int getNeighbor(int index, int direction) {
+    return neighbors[4 * index + direction];
+  }
+
+  @Override
+  public GridSymmetry getSymmetry() {
+    return symmetry;
+  }
+
+  @Override
+  public Player getOwnerAt(int index) {
+    return cells[index].getOwner();
+  }
+
+  @Override
+  public int getCardIdAt(int index) {
+    Card card = cells[index].getCard();
+    return card == null ? -1 : CardRegistry.idOf(card);
+  }
+
+  @Override
+  public void flipAt(int index, Player newOwner) {
+    cells[index].flip(newOwner);
+  }
+
+  /**
+   * Updates the grid's counters after a card cell changed.
+   *
+   * @param wasOccupied whether the cell held a card before the change
+   * @param oldOwner    the owner of the cell before the change
+   * @param isOccupied  whether the cell holds a card after the change
+   * @param newOwner    the owner of the cell after the change
+   */
+  void cellChanged(boolean wasOccupied, Player oldOwner, boolean isOccupied, Player newOwner) {
+    if (wasOccupied) {
+      addOwned(oldOwner, -1);
+    } else {
+      emptyCardCells--;
+    }
+    if (isOccupied) {
+      addOwned(newOwner, 1);
+    } else {
+      emptyCardCells++;
+    }
+  }
+
+  private void addOwned(Player player, int delta) {
+    if (player == null) {
+      return;
+    }
+    int i = 0;
+    while (i < owners.length && owners[i] != null && owners[i] != player) {
+      i++;
+    }
+    if (i == owners.length) {
+      owners = Arrays.copyOf(owners, i * 2);
+      ownedCounts = Arrays.copyOf(ownedCounts, i * 2);
+    }
+    owners[i] = player;
+    ownedCounts[i] += delta;
+  }
 }
@@ -0,0 +1,228 @@
+/**
+ * The rotations and reflections that map a grid's layout of card cells and holes onto itself.
+ * A square grid can have up to eight: the identity, three rotations and four reflections. Other
+ * grids can have up to four, since rotating by a quarter turn or reflecting in a diagonal changes
+ * their shape. Grids build their symmetry once, when they are built, see
+ * {@link IntGrid#getSymmetry()}.
+ *
+ * <p>Moving a card with a transform also turns the card: the attack value that faced north faces
+ * wherever north goes. A position and its image under a symmetry, with every card on the grid and
+ * in the hands turned that way, play out the same, so they can share one entry in a search cache
+ * or an opening book. {@link #cellKey} and {@link #handKey} give the key values of a position's
+ * image, and the canonical key of a position, see {@link Game#getCanonicalKey()}, is the smallest
+ * of the keys of its images. Transformed cards are generally not in the deck, so these keys
+ * identify cards by their attack values rather than their {@link CardRegistry} ids.
+ */
+public final class GridSymmetry {
+  /**
+   * The names of the transforms, by transform number.
+   */
+  private static final String[] NAMES = {"identity", "rotate 90", "rotate 180", "rotate 270",
+      "mirror columns", "mirror rows", "transpose", "anti-transpose"};
+
+  /**
+   * Where each transform sends each direction, by transform number and Direction ordinal.
+   */
+  private static final int[][] DIRECTIONS = {
+      {0, 1, 2, 3}, {2, 3, 1, 0}, {1, 0, 3, 2}, {3, 2, 0, 1},
+      {0, 1, 3, 2}, {1, 0, 2, 3}, {3, 2, 1, 0}, {2, 3, 0, 1}};
+
+  private final int[] transforms;
+  private final int[][] cellMaps;
+  private final int[][] inverseMaps;
+
+  private GridSymmetry(int[] transforms, int[][] cellMaps) {
+    this.transforms = transforms;
+    this.cellMaps = cellMaps;
+    this.inverseMaps = new int[cellMaps.length][];
+    for (int s = 0; s < cellMaps.length; s++) {
+      inverseMaps[s] = new int[cellMaps[s].length];
+      for (int cell = 0; cell < cellMaps[s].length; cell++) {
+        inverseMaps[s][cellMaps[s][cell]] = cell;
+      }
+    }
+  }
+
+  /**
+   * Finds the symmetries of a grid layout.
+   *
+   * @param cardCells whether each cell, by index row * cols + col, is a card cell
+   * @param rows      the number of rows in the grid
+   * @param cols      the number of columns in the grid
+   * @return the symmetries of the layout, the identity first
+   */
+  static GridSymmetry of(boolean[] cardCells, int rows, int cols) {
+    int[] found = new int[NAMES.length];
+    int[][] maps = new int[NAMES.length][];
+    int count = 0;
+    for (int t = 0; t < NAMES.length; t++) {
+      int[] map = cellMap(t, rows, cols);
+      if (map == null) {
+        continue;
+      }
+      boolean symmetric = true;
+      for (int cell = 0; cell < cardCells.length && symmetric; cell++) {
+        symmetric = cardCells[cell] == cardCells[map[cell]];
+      }
+      if (symmetric) {
+        found[count] = t;
+        maps[count++] = map;
+      }
+    }
+    int[] transforms = new int[count];
+    int[][] cellMaps = new int[count][];
+    System.arraycopy(found, 0, transforms, 0, count);
+    System.arraycopy(maps, 0, cellMaps, 0, count);
+    return new GridSymmetry(transforms, cellMaps);
+  }
+
+  /**
+   * Returns where a transform sends each cell, or null if it does not keep the grid's shape.
+   */
+  private static int[] cellMap(int transform, int rows, int cols) {
+    if (transform == 1 || transform == 3 || transform >= 6) {
+      if (rows != cols) {
+        return null;
+      }
+    }
+    int[] map = new int[rows * cols];
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int newRow;
+        int newCol;
+        switch (transform) {
+          case 0:
+            newRow = row;
+            newCol = col;
+            break;
+          case 1:
+            newRow = col;
+            newCol = rows - 1 - row;
+            break;
+          case 2:
+            newRow = rows - 1 - row;
+            newCol = cols - 1 - col;
+            break;
+          case 3:
+            newRow = cols - 1 - col;
+            newCol = row;
+            break;
+          case 4:
+            newRow = row;
+            newCol = cols - 1 - col;
+            break;
+          case 5:
+            newRow = rows - 1 - row;
+            newCol = col;
+            break;
+          case 6:
+            newRow = col;
+            newCol = row;
+            break;
+          default:
+            newRow = cols - 1 - col;
+            newCol = rows - 1 - row;
+            break;
+        }
+        map[row * cols + col] = newRow * cols + newCol;
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Returns the number of symmetries, the identity included.
+   *
+   * @return the order of the symmetry group, from 1 to 8
+   */
+  public int size() {
+    return transforms.length;
+  }
+
+  /**
+   * Returns the name of a symmetry, such as "rotate 90" for a clockwise quarter turn.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @return the name of the symmetry
+   */
+  public String getName(int symmetry) {
+    return NAMES[transforms[symmetry]];
+  }
+
+  /**
+   * Returns the cell a symmetry sends a cell to.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @param cell     the index of the cell, row * cols + col
+   * @return the index of the image of the cell
+   */
+  public int mapCell(int symmetry, int cell) {
+    return cellMaps[symmetry][cell];
+  }
+
+  /**
+   * Returns the cell a symmetry sends to the given cell, undoing {@link #mapCell(int, int)}.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @param cell     the index of the image cell
+   * @return the index of the cell that the symmetry sends there
+   */
+  public int unmapCell(int symmetry, int cell) {
+    return inverseMaps[symmetry][cell];
+  }
+
+  /**
+   * Returns the direction a symmetry sends a direction to.
+   *
+   * @param symmetry  the number of the symmetry, from 0 to size() - 1
+   * @param direction the ordinal of the direction
+   * @return the ordinal of the image of the direction
+   */
+  public int mapDirection(int symmetry, int direction) {
+    return DIRECTIONS[transforms[symmetry]][direction];
+  }
+
+  /**
+   * Returns the attack values of a card turned by a symmetry: the value the card had in each
+   * direction is moved to the image of that direction.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @param attacks  the packed attack values of the card
+   * @return the packed attack values of the turned card
+   */
+  public int mapAttacks(int symmetry, int attacks) {
+    int[] directions = DIRECTIONS[transforms[symmetry]];
+    int mapped = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      mapped |= Card.attack(attacks, dir) << (directions[dir] << 2);
+    }
+    return mapped;
+  }
+
+  /**
+   * Returns the key value of the image under a symmetry of a card in a cell, to be combined by
+   * XOR like {@link Zobrist#key} values.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @param cell     the index of the cell
+   * @param attacks  the packed attack values of the card
+   * @param owner    {@link Zobrist#RED} or {@link Zobrist#BLUE}
+   * @return the key value of the turned card in the image of the cell
+   */
+  public long cellKey(int symmetry, int cell, int attacks, int owner) {
+    return Zobrist.cardKey(cellMaps[symmetry][cell], mapAttacks(symmetry, attacks), owner);
+  }
+
+  /**
+   * Returns the key value of the image under a symmetry of a card in a hand, to be combined by
+   * addition like {@link Zobrist#handCard} values.
+   *
+   * @param symmetry the number of the symmetry, from 0 to size() - 1
+   * @param attacks  the packed attack values of the card
+   * @param owner    {@link Zobrist#RED} or {@link Zobrist#BLUE}
+   * @return the key value of the turned card in the hand
+   */
+  public long handKey(int symmetry, int attacks, int owner) {
+    return Zobrist.handCard(mapAttacks(symmetry, attacks), owner);
+  }
+}
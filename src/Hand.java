@@ -0,0 +1,392 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The cards in a player's hand, kept in slots that never move. Each card added takes the next
+ * slot, and a bit mask records which slots still hold their card, so {@link #remove(int)} and
+ * {@link #restore(int)} take a card out of its slot and put it back in constant time. The cards
+ * left are found by scanning the mask for set bits, in slot order. Encoded moves and the game's
+ * undo stack name cards by slot, so search code never needs anything else.
+ *
+ * <p>Positions in the hand, as used by {@link Player#getCardAt(int)}, count only the cards left:
+ * the card at position i is the one in the (i + 1)th occupied slot. The hand lists the occupied
+ * slots in order the first time a position is looked up after a change, so looking up a
+ * position after every move costs a pass over the mask each time.
+ *
+ * <p>Each slot holds the card and its {@link CardRegistry} id. The card is kept as well as the
+ * id because the registry gives one id to every card with the same name and attack values, and
+ * callers find cards in a hand by identity.
+ */
+public final class Hand {
+  private Card[] cards;
+  private int[] ids;
+  private long[] present;
+  private int slots;
+  private int size;
+  private int[] order = new int[0];
+  private boolean orderValid;
+  private final List<Card> view = new View();
+
+  /**
+   * Creates an empty hand with room for the given number of cards. Adding more cards than that
+   * grows the hand.
+   *
+   * @param capacity the number of slots to start with
+   * @throws IllegalArgumentException if the capacity is negative
+   */
+  public Hand(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative.");
+    }
+    this.cards = new Card[capacity];
+    this.ids = new int[capacity];
+    this.present = new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * Returns a hand with the same cards in the same slots, present or not. The copy changes
+   * independently of this hand.
+   *
+   * @return a copy of this hand
+   */
+  public Hand copy() {
+    Hand copy = new Hand(0);
+    copy.cards = cards.clone();
+    copy.ids = ids.clone();
+    copy.present = present.clone();
+    copy.slots = slots;
+    copy.size = size;
+    return copy;
+  }
+
+  /**
+   * Puts a card in the next unused slot.
+   *
+   * @param card the card to add
+   * @return the slot of the card
+   */
+  public int add(Card card) {
+    if (slots == cards.length) {
+      grow(slots + 1);
+    }
+    int slot = slots++;
+    cards[slot] = card;
+    ids[slot] = CardRegistry.idOf(card);
+    present[slot >>> 6] |= 1L << slot;
+    size++;
+    orderValid = false;
+    return slot;
+  }
+
+  /**
+   * Takes the card out of a slot. The slot keeps the card, so {@link #restore(int)} can put it
+   * back.
+   *
+   * @param slot the slot to empty
+   * @throws IllegalArgumentException if the slot does not hold a card
+   */
+  public void remove(int slot) {
+    if (!isPresent(slot)) {
+      throw new IllegalArgumentException("Slot " + slot + " does not hold a card.");
+    }
+    present[slot >>> 6] &= ~(1L << slot);
+    size--;
+    orderValid = false;
+  }
+
+  /**
+   * Puts the card taken out of a slot back, undoing {@link #remove(int)}.
+   *
+   * @param slot the slot to refill
+   * @throws IllegalArgumentException if the slot was never used or still holds its card
+   */
+  public void restore(int slot) {
+    if (slot < 0 || slot >= slots || isPresent(slot)) {
+      throw new IllegalArgumentException("Slot " + slot + " is not empty.");
+    }
+    present[slot >>> 6] |= 1L << slot;
+    size++;
+    orderValid = false;
+  }
+
+  /**
+   * Empties the hand and frees every slot.
+   */
+  public void clear() {
+    Arrays.fill(cards, 0, slots, null);
+    Arrays.fill(present, 0);
+    slots = 0;
+    size = 0;
+    orderValid = false;
+  }
+
+  /**
+   * Returns the number of cards in the hand.
+   *
+   * @return the number of occupied slots
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of slots used since the hand was last cleared, whether or not they still
+   * hold their card. Every slot is below this number.
+   *
+   * @return the number of slots used
+   */
+  public int getSlotCount() {
+    return slots;
+  }
+
+  /**
+   * Returns whether a slot holds its card.
+   *
+   * @param slot the slot to check
+   * @return true if the slot holds a card that has not been removed
+   */
+  public boolean isPresent(int slot) {
+    return slot >= 0 && slot < slots && (present[slot >>> 6] & 1L << slot) != 0;
+  }
+
+  /**
+   * Returns the card of a slot, whether or not it has been removed.
+   *
+   * @param slot a slot that has been used
+   * @return the card added in that slot
+   */
+  public Card getCard(int slot) {
+    return cards[slot];
+  }
+
+  /**
+   * Returns the {@link CardRegistry} id of the card of a slot, whether or not it has been
+   * removed.
+   *
+   * @param slot a slot that has been used
+   * @return the id of the card added in that slot
+   */
+  public int getCardId(int slot) {
+    return ids[slot];
+  }
+
+  /**
+   * Returns the {@link CardRegistry} ids of the cards left, in order.
+   *
+   * @return a new array of the ids of the cards in the hand
+   */
+  public int[] getCardIds() {
+    int[] result = new int[size];
+    int index = 0;
+    for (int word = 0; word < present.length; word++) {
+      for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+        result[index++] = ids[word << 6 | Long.numberOfTrailingZeros(bits)];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the first occupied slot at or after the given one. The cards left can be visited
+   * with {@code for (int s = hand.nextSlot(0); s >= 0; s = hand.nextSlot(s + 1))}.
+   *
+   * @param from the slot to start at
+   * @return the next occupied slot, or -1 if there is none
+   */
+  public int nextSlot(int from) {
+    if (from >= slots) {
+      return -1;
+    }
+    int word = from >>> 6;
+    long bits = present[word] & -1L << from;
+    while (bits == 0) {
+      if (++word == present.length) {
+        return -1;
+      }
+      bits = present[word];
+    }
+    return word << 6 | Long.numberOfTrailingZeros(bits);
+  }
+
+  /**
+   * Returns the slot of the card at a position in the hand.
+   *
+   * @param index the position, counting only the cards left
+   * @return the slot of the card at that position
+   * @throws IndexOutOfBoundsException if the index is not a position in the hand
+   */
+  public int slotOf(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (!orderValid) {
+      buildOrder();
+    }
+    return order[index];
+  }
+
+  /**
+   * Lists the occupied slots in order, so positions can be looked up until the hand changes.
+   */
+  private void buildOrder() {
+    if (order.length < size) {
+      order = new int[cards.length];
+    }
+    int index = 0;
+    for (int word = 0; word < present.length; word++) {
+      for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+        order[index++] = word << 6 | Long.numberOfTrailingZeros(bits);
+      }
+    }
+    orderValid = true;
+  }
+
+  /**
+   * Returns the position in the hand of the card in an occupied slot.
+   *
+   * @param slot an occupied slot
+   * @return the number of cards left in earlier slots
+   */
+  public int indexOf(int slot) {
+    int word = slot >>> 6;
+    int index = Long.bitCount(present[word] & ~(-1L << slot));
+    for (int w = 0; w < word; w++) {
+      index += Long.bitCount(present[w]);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the occupied slot holding the given card, compared by identity.
+   *
+   * @param card the card to look for
+   * @return the first occupied slot holding the card, or -1 if it is not in the hand
+   */
+  public int find(Card card) {
+    for (int word = 0; word < present.length; word++) {
+      for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+        int slot = word << 6 | Long.numberOfTrailingZeros(bits);
+        if (cards[slot] == card) {
+          return slot;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns an empty slot that held the given card and would be at the given position if it
+   * were refilled, or -1 if there is none. This finds the slot a card taken out at that position
+   * came from.
+   *
+   * @param index the position the card had in the hand
+   * @param card  the card that was taken out
+   * @return the slot to restore, or -1
+   */
+  public int findRemoved(int index, Card card) {
+    for (int word = 0; word << 6 < slots; word++) {
+      long bits = ~present[word];
+      if ((word + 1) << 6 > slots) {
+        bits &= (1L << slots) - 1;
+      }
+      for (; bits != 0; bits &= bits - 1) {
+        int slot = word << 6 | Long.numberOfTrailingZeros(bits);
+        if (cards[slot] == card && indexOf(slot) == index) {
+          return slot;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Puts a card at a position in the hand, moving later cards along by one slot. This costs
+   * time in the number of slots, and is only needed for a card that was not taken out of this
+   * hand at that position.
+   *
+   * @param index the position for the card
+   * @param card  the card to insert
+   */
+  public void insert(int index, Card card) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int slot = index == size ? slots : slotOf(index);
+    add(card);
+    for (int s = slots - 1; s > slot; s--) {
+      cards[s] = cards[s - 1];
+      ids[s] = ids[s - 1];
+      setPresent(s, isPresent(s - 1));
+    }
+    cards[slot] = card;
+    ids[slot] = CardRegistry.idOf(card);
+    setPresent(slot, true);
+    orderValid = false;
+  }
+
+  /**
+   * Returns an unmodifiable view of the cards left, in slot order. The view is not a copy: it
+   * always shows the current cards of the hand.
+   *
+   * @return a live, read-only list of the cards in the hand
+   */
+  public List<Card> asList() {
+    return view;
+  }
+
+  private void setPresent(int slot, boolean value) {
+    if (value) {
+      present[slot >>> 6] |= 1L << slot;
+    } else {
+      present[slot >>> 6] &= ~(1L << slot);
+    }
+  }
+
+  private void grow(int minCapacity) {
+    int capacity = Math.max(minCapacity, 2 * cards.length);
+    cards = Arrays.copyOf(cards, capacity);
+    ids = Arrays.copyOf(ids, capacity);
+    present = Arrays.copyOf(present, (capacity + 63) >>> 6);
+  }
+
+  /**
+   * The live view returned by {@link #asList()}.
+   */
+  private final class View extends AbstractList<Card> implements RandomAccess {
+    @Override
+    public Card get(int index) {
+      return cards[slotOf(index)];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+      return new Iterator<Card>() {
+        private int next = nextSlot(0);
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public Card next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          Card card = cards[next];
+          next = nextSlot(next + 1);
+          return card;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,109 @@
+import java.util.Objects;
+
+/**
+ * A strategy that passes every call on to another strategy and records how the call went:
+ * a {@link StrategyEvent} with the nodes searched and the move played when flight recording
+ * enables it, and a call count, a node count and a latency histogram per strategy name in the
+ * {@link Metrics#getDefault() default metrics} when they are enabled. With both off, a call
+ * costs one event allocation that the JIT removes and two field checks.
+ */
+public class InstrumentedStrategy implements ThreeTriosStrategy {
+    private final String name;
+    private final ThreeTriosStrategy delegate;
+    private final Metrics metrics;
+    private final Metrics.Counter calls;
+    private final Metrics.Counter nodes;
+    private final Metrics.Histogram nanos;
+
+    /**
+     * Constructs a strategy that records its calls in the default metrics.
+     *
+     * @param name     the name to record the calls under
+     * @param delegate the strategy that chooses the moves
+     */
+    public InstrumentedStrategy(String name, ThreeTriosStrategy delegate) {
+        this(name, delegate, Metrics.getDefault());
+    }
+
+    /**
+     * Constructs a strategy that records its calls in the given metrics.
+     *
+     * @param name     the name to record the calls under
+     * @param delegate the strategy that chooses the moves
+     * @param metrics  the registry to record the calls in
+     */
+    public InstrumentedStrategy(String name, ThreeTriosStrategy delegate, Metrics metrics) {
+        this.name = Objects.requireNonNull(name);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.metrics = metrics;
+        this.calls = metrics.counter("strategy." + name + ".calls");
+        this.nodes = metrics.counter("strategy." + name + ".nodes");
+        this.nanos = metrics.histogram("strategy." + name + ".nanos");
+    }
+
+    @Override
+    public void flipMost(String color, Game game) {
+        StrategyEvent event = new StrategyEvent();
+        event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        PositionSnapshot before = game.getSnapshot();
+        delegate.flipMost(color, game);
+        record(event, "flipMost", color, game, before, start);
+    }
+
+    @Override
+    public void bestCorner(String color, Game game) {
+        StrategyEvent event = new StrategyEvent();
+        event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        PositionSnapshot before = game.getSnapshot();
+        delegate.bestCorner(color, game);
+        record(event, "bestCorner", color, game, before, start);
+    }
+
+    @Override
+    public void playMove(String color, Game game) {
+        StrategyEvent event = new StrategyEvent();
+        event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        PositionSnapshot before = game.getSnapshot();
+        delegate.playMove(color, game);
+        record(event, "playMove", color, game, before, start);
+    }
+
+    @Override
+    public long getNodeCount() {
+        return delegate.getNodeCount();
+    }
+
+    /**
+     * Returns the strategy this one passes its calls on to.
+     *
+     * @return the wrapped strategy
+     */
+    public ThreeTriosStrategy getDelegate() {
+        return delegate;
+    }
+
+    private void record(StrategyEvent event, String method, String color, Game game,
+                        PositionSnapshot before, long start) {
+        if (event.shouldCommit()) {
+            // a turn played by the strategy publishes a new snapshot
+            int move = game.getSnapshot() == before ? -1 : game.getLastMove();
+            int cols = game.getGridDimensions()[1];
+            event.strategy = name;
+            event.method = method;
+            event.player = color;
+            event.nodes = delegate.getNodeCount();
+            event.row = move < 0 ? -1 : Game.moveCell(move) / cols;
+            event.col = move < 0 ? -1 : Game.moveCell(move) % cols;
+            event.slot = move < 0 ? -1 : Game.moveSlot(move);
+            event.commit();
+        }
+        if (metrics.isEnabled()) {
+            nanos.record(System.nanoTime() - start);
+            calls.increment();
+            nodes.add(delegate.getNodeCount());
+        }
+    }
+}
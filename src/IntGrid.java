@@ -1,3 +1,5 @@
+import java.util.function.UnaryOperator;
+
 /**
  * The IntGrid interface represents a basic grid structure in the Three Trios game.
  * This interface provides methods for accessing grid cells, dimensions,
@@ -49,4 +51,84 @@ public interface IntGrid {
    * @throws IllegalArgumentException if the move is invalid
    */
   void placeCard(int row, int col, Card card, Player player);
+
+  /**
+   * Removes the card in the specified cell, leaving the cell empty. This is used to take a move
+   * back, so it does not undo any flips the card caused.
+   *
+   * @param row the row index of the cell
+   * @param col the column index of the cell
+   * @throws IllegalArgumentException if the cell does not hold a card
+   */
+  void removeCard(int row, int col);
+
+  /**
+   * Returns the number of card cells in the grid that do not yet hold a card.
+   *
+   * @return the number of empty card cells
+   */
+  int getEmptyCardCellCount();
+
+  /**
+   * Returns the number of cells on the grid currently owned by the given player.
+   *
+   * @param player the player whose cells are counted
+   * @return the number of cells owned by the player, or 0 if the player owns none
+   */
+  int getOwnedCount(IntPlayer player);
+
+  /**
+   * Returns an independent copy of this grid holding the same cards. Each owner in the copy is
+   * the result of applying the given mapping to the owner in this grid, which lets a copied game
+   * point the copied grid at its own players.
+   *
+   * @param owners maps each owner in this grid to the owner in the copy
+   * @return a copy of this grid
+   */
+  IntGrid copy(UnaryOperator<Player> owners);
+
+  /**
+   * Returns the index of the card cell next to the given cell in the given direction.
+   * Cells are indexed row by row, so the cell at (row, col) has the index row * cols + col.
+   * The neighbors are computed once when the grid is built, so this is a single array lookup.
+   *
+   * @param index     the index of the cell
+   * @param direction the ordinal of the direction
+   * @return the index of the adjacent card cell, or -1 if the adjacent position is off the grid
+   *         or a hole
+   */
+  int getNeighbor(int index, int direction);
+
+  /**
+   * Returns the rotations and reflections that map this grid's layout of card cells and holes
+   * onto itself. They are found once when the grid is built.
+   *
+   * @return the symmetries of the grid
+   */
+  GridSymmetry getSymmetry();
+
+  /**
+   * Returns the owner of the card in the cell with the given index.
+   *
+   * @param index the index of the cell
+   * @return the owner of the card, or null if the cell is empty or a hole
+   */
+  Player getOwnerAt(int index);
+
+  /**
+   * Returns the {@link CardRegistry} id of the card in the cell with the given index.
+   *
+   * @param index the index of the cell
+   * @return the id of the card, or -1 if the cell is empty or a hole
+   */
+  int getCardIdAt(int index);
+
+  /**
+   * Gives the card in the cell with the given index to a new owner. Does nothing if the cell
+   * holds no card.
+   *
+   * @param index    the index of the cell
+   * @param newOwner the new owner of the card
+   */
+  void flipAt(int index, Player newOwner);
 }
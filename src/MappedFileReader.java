@@ -0,0 +1,317 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the same grid and card configuration files as {@link FileReader}, but maps each file
+ * into memory and parses its bytes in place instead of going through a Scanner and splitting
+ * every line into strings. Attack values are parsed straight into the packed form used by
+ * {@link Card}, so the only objects created per card are its name and, when a list of cards is
+ * requested, the card itself. {@link #forEachCard(String, CardConsumer)} hands each card to a
+ * callback as it is parsed, so a large deck never has to be held in memory at once.
+ *
+ * <p>The files are validated with the same rules as FileReader: a grid file has its dimensions
+ * on the first line and one row of 'C' and 'X' cells per line, and a card file has a name and
+ * four attack values from 1 to 9 or A on each line, separated by single spaces. Errors are
+ * reported as IllegalArgumentExceptions that name the line they were found on.
+ */
+public final class MappedFileReader {
+
+  private MappedFileReader() {
+  }
+
+  /**
+   * Receives the cards of a card file one at a time.
+   */
+  public interface CardConsumer {
+    /**
+     * Called for each card in the file, in order.
+     *
+     * @param name    the name of the card
+     * @param attacks the attack values of the card, packed as by {@link Card#pack}
+     * @param line    the line of the file the card was read from, starting at 1
+     */
+    void accept(String name, int attacks, int line);
+  }
+
+  /**
+   * Loads a grid configuration from a specified file path.
+   *
+   * @param filePath the path to the grid configuration file
+   * @return a Grid object representing the loaded grid
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file is malformed or has an even number of card
+   *                                  cells
+   */
+  public static Grid loadGrid(String filePath) throws IOException {
+    Cell[][] grid = loadLayout(filePath);
+    return new Grid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  /**
+   * Loads a grid configuration from a specified file path into a bitmask-backed grid.
+   *
+   * @param filePath the path to the grid configuration file
+   * @return a BitGrid representing the loaded grid
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if the file is malformed or has an even number of card
+   *                                  cells
+   */
+  public static BitGrid loadBitGrid(String filePath) throws IOException {
+    Cell[][] grid = loadLayout(filePath);
+    return new BitGrid(grid, grid.length, grid.length == 0 ? 0 : grid[0].length);
+  }
+
+  /**
+   * Loads a list of cards from a specified file path. Every card is registered with the
+   * {@link CardRegistry}, and cards with the same name and attack values are returned as the
+   * same instance, as with {@link FileReader#loadCards(String)}.
+   *
+   * @param filePath the path to the card configuration file
+   * @return the cards in the file, in order
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if a line does not hold a valid card
+   */
+  public static List<Card> loadCards(String filePath) throws IOException {
+    List<Card> cards = new ArrayList<>();
+    forEachCard(filePath, (name, attacks, line) -> {
+      Card card = new Card(name, Card.attack(attacks, 0), Card.attack(attacks, 1),
+              Card.attack(attacks, 2), Card.attack(attacks, 3));
+      cards.add(CardRegistry.getCard(CardRegistry.intern(card)));
+    });
+    return cards;
+  }
+
+  /**
+   * Parses a card file and passes each card to the given consumer as soon as it is read.
+   *
+   * @param filePath the path to the card configuration file
+   * @param consumer receives the cards in file order
+   * @throws FileNotFoundException    if the file is not found at the specified path
+   * @throws IOException              if the file cannot be read
+   * @throws IllegalArgumentException if a line does not hold a valid card; the cards before it
+   *                                  have already been passed to the consumer
+   */
+  public static void forEachCard(String filePath, CardConsumer consumer) throws IOException {
+    Parser parser = new Parser(map(filePath));
+    while (parser.hasMoreLines()) {
+      String name = parser.nextField(false);
+      int north = parser.nextAttack(false);
+      int south = parser.nextAttack(false);
+      int east = parser.nextAttack(false);
+      int west = parser.nextAttack(true);
+      int attacks;
+      try {
+        attacks = Card.pack(north, south, east, west);
+      } catch (IllegalArgumentException e) {
+        throw parser.error(e.getMessage());
+      }
+      consumer.accept(name, attacks, parser.line);
+      parser.endLine();
+    }
+  }
+
+  /**
+   * Parses the layout of a grid file into an array of empty cells.
+   */
+  private static Cell[][] loadLayout(String filePath) throws IOException {
+    Parser parser = new Parser(map(filePath));
+    if (!parser.hasMoreLines()) {
+      throw parser.error("Missing grid dimensions.");
+    }
+    parser.skipSpaces();
+    int rows = parser.nextInt();
+    parser.skipSpaces();
+    int cols = parser.nextInt();
+    parser.skipLine();
+
+    Cell[][] grid = new Cell[rows][cols];
+    for (int i = 0; i < rows; i++) {
+      if (!parser.hasMoreLines()) {
+        throw parser.error("Missing grid row " + (i + 1) + ".");
+      }
+      for (int j = 0; j < cols; j++) {
+        int cellType = parser.peek();
+        if (cellType == 'C') {
+          grid[i][j] = new Cell(true);
+        } else if (cellType == 'X') {
+          grid[i][j] = new Cell(false);
+        } else if (cellType == '\n' || cellType == '\r' || cellType == -1) {
+          throw parser.error("Grid row has fewer than " + cols + " cells.");
+        } else {
+          throw parser.error("Invalid cell type in grid configuration file.");
+        }
+        parser.pos++;
+      }
+      parser.skipLine();
+    }
+    return grid;
+  }
+
+  /**
+   * Maps the whole of a file into memory.
+   */
+  static MappedByteBuffer map(String filePath) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Configuration file is too large: " + filePath);
+      }
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (NoSuchFileException e) {
+      throw new FileNotFoundException(filePath + " (No such file or directory)");
+    }
+  }
+
+  /**
+   * A cursor over the bytes of a mapped file that keeps track of the current line.
+   */
+  private static final class Parser {
+    private static final int MAX_DIMENSION = 1 << 16;
+
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private byte[] scratch;
+    private int pos;
+    private int line;
+
+    Parser(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+      this.limit = buffer.limit();
+      this.scratch = new byte[32];
+      this.line = 1;
+    }
+
+    /**
+     * Returns whether another line starts at the cursor. As with Scanner.hasNextLine, a final
+     * line break does not start a new, empty line.
+     */
+    boolean hasMoreLines() {
+      return pos < limit;
+    }
+
+    int peek() {
+      return pos < limit ? buffer.get(pos) : -1;
+    }
+
+    /**
+     * Reads the text up to the next space or the end of the line. The last field of a line
+     * may be followed by spaces before the line break, which split(" ") would also ignore.
+     */
+    String nextField(boolean last) {
+      int start = pos;
+      while (pos < limit && !isFieldEnd(buffer.get(pos))) {
+        pos++;
+      }
+      if (pos == start) {
+        throw error("Invalid card data format.");
+      }
+      int length = pos - start;
+      if (scratch.length < length) {
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      for (int i = 0; i < length; i++) {
+        scratch[i] = buffer.get(start + i);
+      }
+      endField(last);
+      return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an attack value: a number, or A for 10. Range checks are left to Card.pack.
+     */
+    int nextAttack(boolean last) {
+      int start = pos;
+      int value = 0;
+      if (pos < limit && buffer.get(pos) == 'A') {
+        pos++;
+        value = 10;
+      } else {
+        while (pos < limit && buffer.get(pos) >= '0' && buffer.get(pos) <= '9') {
+          // any value past two digits is out of range, so stop growing before it overflows
+          value = Math.min(value * 10 + buffer.get(pos) - '0', 100);
+          pos++;
+        }
+      }
+      if (pos == start || pos < limit && !isFieldEnd(buffer.get(pos))) {
+        throw error("Invalid attack value.");
+      }
+      endField(last);
+      return value;
+    }
+
+    int nextInt() {
+      int start = pos;
+      int value = 0;
+      while (pos < limit && buffer.get(pos) >= '0' && buffer.get(pos) <= '9') {
+        value = value * 10 + buffer.get(pos) - '0';
+        if (value > MAX_DIMENSION) {
+          throw error("Grid dimension is too large.");
+        }
+        pos++;
+      }
+      if (pos == start) {
+        throw error("Invalid grid dimensions.");
+      }
+      return value;
+    }
+
+    void skipSpaces() {
+      while (pos < limit && buffer.get(pos) == ' ') {
+        pos++;
+      }
+    }
+
+    /**
+     * Checks that the line ends at the cursor and moves to the start of the next line.
+     */
+    void endLine() {
+      skipSpaces();
+      if (pos < limit && buffer.get(pos) != '\n' && buffer.get(pos) != '\r') {
+        throw error("Invalid card data format.");
+      }
+      skipLine();
+    }
+
+    /**
+     * Moves to the start of the next line, ignoring the rest of the current one.
+     */
+    void skipLine() {
+      while (pos < limit && buffer.get(pos) != '\n') {
+        pos++;
+      }
+      if (pos < limit) {
+        pos++;
+        line++;
+      }
+    }
+
+    IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("Line " + line + ": " + message);
+    }
+
+    private void endField(boolean last) {
+      if (last) {
+        return;
+      }
+      if (pos >= limit || buffer.get(pos) != ' ') {
+        throw error("Invalid card data format.");
+      }
+      pos++;
+    }
+
+    private static boolean isFieldEnd(byte b) {
+      return b == ' ' || b == '\n' || b == '\r';
+    }
+  }
+}
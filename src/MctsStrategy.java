@@ -0,0 +1,372 @@
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A strategy that chooses moves by Monte Carlo tree search with UCT selection.
+ * Each iteration walks down a shared search tree, plays the rest of the game out with random
+ * or flip-greedy moves until the game is over, and credits the result from Game.checkWinner's
+ * counting (via the final score margin) to every node on the path. The move played is the root
+ * move that was visited most.
+ *
+ * <p>Given a ForkJoinPool, every worker of the pool runs iterations on the same tree with its
+ * own copy of the game. A node being explored counts as a loss for the other workers until its
+ * result is known (virtual loss), which spreads the workers over different parts of the tree.
+ * The search stops after a fixed number of playouts or when a time budget runs out.
+ */
+public class MctsStrategy implements ThreeTriosStrategy {
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int VIRTUAL_LOSS = 1;
+
+    /**
+     * How moves are chosen during a playout.
+     */
+    public enum Playout {
+        /**
+         * Any legal move, uniformly at random.
+         */
+        RANDOM,
+
+        /**
+         * A move that flips the most cards, ties broken at random.
+         */
+        GREEDY
+    }
+
+    private final ForkJoinPool pool;
+    private final long playoutBudget;
+    private final long timeBudgetNanos;
+    private final Playout playout;
+    private final long seed;
+    private long playouts;
+    private long elapsedNanos;
+
+    /**
+     * Creates a strategy that runs a fixed number of playouts per move.
+     *
+     * @param playouts the number of playouts per move
+     * @param playout  how moves are chosen during a playout
+     * @param pool     the pool to run playouts in, or null to run them on the calling thread
+     * @param seed     the seed for the random choices
+     * @throws IllegalArgumentException if playouts is not positive
+     */
+    public MctsStrategy(long playouts, Playout playout, ForkJoinPool pool, long seed) {
+        if (playouts <= 0) {
+            throw new IllegalArgumentException("Playout budget must be positive.");
+        }
+        this.pool = pool;
+        this.playoutBudget = playouts;
+        this.timeBudgetNanos = 0;
+        this.playout = playout;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a strategy that runs playouts until a time budget per move runs out.
+     *
+     * @param budget  the thinking time per move
+     * @param playout how moves are chosen during a playout
+     * @param pool    the pool to run playouts in, or null to run them on the calling thread
+     * @param seed    the seed for the random choices
+     * @throws IllegalArgumentException if the budget is not positive
+     */
+    public MctsStrategy(Duration budget, Playout playout, ForkJoinPool pool, long seed) {
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Time budget must be positive.");
+        }
+        this.pool = pool;
+        this.playoutBudget = Long.MAX_VALUE;
+        this.timeBudgetNanos = budget.toNanos();
+        this.playout = playout;
+        this.seed = seed;
+    }
+
+    /**
+     * makes the most visited move of the search
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void flipMost(String color, Game game) {
+        playMove(color, game);
+    }
+
+    /**
+     * makes the most visited move of the search; the search already weighs corner moves by
+     * how they play out, so this is the same as playMove
+     * @param color the color of the player making the move
+     */
+    @Override
+    public void bestCorner(String color, Game game) {
+        playMove(color, game);
+    }
+
+    @Override
+    public void playMove(String color, Game game) {
+        int move = findBestMove(color, game);
+        int cols = game.getGridDimensions()[1];
+        int cell = Game.moveCell(move);
+        game.playTurn(cell / cols, cell % cols,
+                game.getCurrentPlayer().getCardInSlot(Game.moveSlot(move)));
+    }
+
+    /**
+     * Searches the current position and returns the most visited move without playing it.
+     *
+     * @param color the color of the player to move
+     * @param game  the game to search
+     * @return the chosen move, encoded as by {@link Game#encodeMove(int, int)}
+     * @throws IllegalArgumentException if it is not the given player's turn or the game is over
+     */
+    public int findBestMove(String color, Game game) {
+        if (!game.getCurrentPlayer().getColor().equalsIgnoreCase(color)) {
+            throw new IllegalArgumentException("It is not " + color + "'s turn.");
+        }
+        if (game.isGameOver()) {
+            throw new IllegalArgumentException("The game is over.");
+        }
+        long start = System.nanoTime();
+        long deadline = timeBudgetNanos == 0 ? Long.MAX_VALUE : start + timeBudgetNanos;
+        Node root = new Node(null, -1, !isRed(game));
+        AtomicLong remaining = new AtomicLong(playoutBudget);
+
+        if (pool == null) {
+            new Worker(game, root, remaining, deadline, seed).run();
+        } else {
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[pool.getParallelism()];
+            for (int w = 0; w < tasks.length; w++) {
+                tasks[w] = pool.submit(new Worker(game.copy(), root, remaining, deadline, seed + w));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        playouts = root.visits;
+        elapsedNanos = System.nanoTime() - start;
+        Node best = root.children[0];
+        for (Node child : root.children) {
+            if (child.visits > best.visits) {
+                best = child;
+            }
+        }
+        return best.move;
+    }
+
+    /**
+     * Returns the number of playouts run by the last search.
+     *
+     * @return the playout count of the last search
+     */
+    public long getPlayoutCount() {
+        return playouts;
+    }
+
+    /**
+     * Returns the number of playouts run by the last search, the unit of work of this strategy.
+     *
+     * @return the playout count of the last search
+     */
+    @Override
+    public long getNodeCount() {
+        return playouts;
+    }
+
+    /**
+     * Returns how long the last search took.
+     *
+     * @return the duration of the last search in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the playout speed of the last search, over all workers.
+     *
+     * @return playouts per second during the last search
+     */
+    public double getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0 : playouts * 1e9 / elapsedNanos;
+    }
+
+    private static boolean isRed(Game game) {
+        return game.getCurrentPlayer().getColor().equalsIgnoreCase("Red");
+    }
+
+    /**
+     * A node of the search tree. The visit and win counts of a node are guarded by the lock of
+     * its parent (the root guards its own), so a parent can select among its children and
+     * update them atomically.
+     */
+    private static final class Node {
+        private final Node parent;
+        private final int move;
+        private final boolean redMoved;
+        private Node[] children;
+        private int visits;
+        private double wins;
+
+        Node(Node parent, int move, boolean redMoved) {
+            this.parent = parent;
+            this.move = move;
+            this.redMoved = redMoved;
+        }
+
+        private Object lock() {
+            return parent == null ? this : parent;
+        }
+    }
+
+    /**
+     * Runs search iterations on its own copy of the game until the budget is spent.
+     */
+    private final class Worker implements Runnable {
+        private final Game game;
+        private final Node root;
+        private final AtomicLong remaining;
+        private final long deadline;
+        private final SplittableRandom random;
+        private int[] moves;
+
+        Worker(Game game, Node root, AtomicLong remaining, long deadline, long seed) {
+            this.game = game;
+            this.root = root;
+            this.remaining = remaining;
+            this.deadline = deadline;
+            this.random = new SplittableRandom(seed);
+            this.moves = new int[0];
+        }
+
+        @Override
+        public void run() {
+            while (remaining.getAndDecrement() > 0) {
+                iterate();
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+        }
+
+        private void iterate() {
+            Node node = root;
+            int depth = 0;
+            while (true) {
+                Node child;
+                boolean unvisited;
+                synchronized (node) {
+                    if (node.children == null) {
+                        if (game.isGameOver()) {
+                            break;
+                        }
+                        expand(node);
+                    }
+                    child = select(node);
+                    unvisited = child.visits == 0;
+                    child.visits += VIRTUAL_LOSS;
+                }
+                play(child.move);
+                depth++;
+                node = child;
+                if (unvisited) {
+                    break;
+                }
+            }
+
+            int played = 0;
+            while (!game.isGameOver()) {
+                play(playout == Playout.GREEDY ? greedyMove() : randomMove());
+                played++;
+            }
+            int margin = game.getMargin();
+            for (int i = 0; i < played + depth; i++) {
+                game.unmakeMove();
+            }
+
+            for (Node n = node; n != null; n = n.parent) {
+                synchronized (n.lock()) {
+                    if (n != root) {
+                        n.visits -= VIRTUAL_LOSS;
+                    }
+                    n.visits++;
+                    if (margin == 0) {
+                        n.wins += 0.5;
+                    } else if (margin > 0 == n.redMoved) {
+                        n.wins += 1;
+                    }
+                }
+            }
+        }
+
+        private void expand(Node node) {
+            int count = generateMoves();
+            boolean red = isRed(game);
+            Node[] children = new Node[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new Node(node, moves[i], red);
+            }
+            node.children = children;
+        }
+
+        /**
+         * Picks the child with the highest UCT value, trying unvisited children first.
+         * Called with the node's lock held.
+         */
+        private Node select(Node node) {
+            double logVisits = Math.log(Math.max(1, node.visits));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : node.children) {
+                if (child.visits == 0) {
+                    return child;
+                }
+                double value = child.wins / child.visits
+                        + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        private int randomMove() {
+            int count = generateMoves();
+            return moves[random.nextInt(count)];
+        }
+
+        private int greedyMove() {
+            int count = generateMoves();
+            int best = -1;
+            int bestFlips = -1;
+            int ties = 0;
+            for (int i = 0; i < count; i++) {
+                int flips = game.getMoveFlipCount(moves[i]);
+                if (flips > bestFlips) {
+                    bestFlips = flips;
+                    best = moves[i];
+                    ties = 1;
+                } else if (flips == bestFlips && random.nextInt(++ties) == 0) {
+                    best = moves[i];
+                }
+            }
+            return best;
+        }
+
+        private void play(int move) {
+            game.makeMove(move);
+        }
+
+        /**
+         * Fills the move buffer with every legal move and returns how many there are.
+         */
+        private int generateMoves() {
+            int size = game.getMoveCount();
+            if (moves.length < size) {
+                moves = new int[size];
+            }
+            return game.generateMoves(moves);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small in-process registry of named counters and latency histograms, for finding out where
+ * time goes in long runs. Counters and histograms are safe to update from many threads, and
+ * {@link #dump(Appendable)} writes all of them at any time.
+ *
+ * <p>A registry is either enabled or disabled for its whole life. The default registry is
+ * enabled by running with -Dthreetrios.metrics=true. The counters and histograms of a disabled
+ * registry ignore updates after checking a final field, so instrumented code costs next to
+ * nothing when metrics are off; callers that need a clock reading for a histogram should check
+ * {@link #isEnabled()} before reading the clock.
+ */
+public final class Metrics {
+  private static final Metrics DEFAULT = new Metrics(Boolean.getBoolean("threetrios.metrics"));
+
+  private final boolean enabled;
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an empty registry.
+   *
+   * @param enabled whether the registry records updates
+   */
+  public Metrics(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the registry used by the game and the strategies.
+   *
+   * @return the default registry
+   */
+  public static Metrics getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns whether this registry records updates.
+   *
+   * @return true if the registry is enabled
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the counter with the given name, creating it on first use.
+   *
+   * @param name the name of the counter
+   * @return the counter
+   */
+  public Counter counter(String name) {
+    return counters.computeIfAbsent(name, n -> new Counter(enabled));
+  }
+
+  /**
+   * Returns the histogram with the given name, creating it on first use.
+   *
+   * @param name the name of the histogram
+   * @return the histogram
+   */
+  public Histogram histogram(String name) {
+    return histograms.computeIfAbsent(name, n -> new Histogram(enabled));
+  }
+
+  /**
+   * Writes every counter and histogram, sorted by name, one per line. Histogram percentiles
+   * are the upper bounds of the power-of-two buckets the values fall in.
+   *
+   * @param out where to write the metrics
+   * @throws IOException if the metrics cannot be written
+   */
+  public void dump(Appendable out) throws IOException {
+    for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+      out.append(String.format("counter   %-40s %d%n", entry.getKey(), entry.getValue().get()));
+    }
+    for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+      Histogram histogram = entry.getValue();
+      out.append(String.format("histogram %-40s count=%d mean=%.0f p50=%d p99=%d max=%d%n",
+              entry.getKey(), histogram.getCount(), histogram.getMean(),
+              histogram.getPercentile(0.5), histogram.getPercentile(0.99),
+              histogram.getMax()));
+    }
+  }
+
+  /**
+   * A count that only goes up.
+   */
+  public static final class Counter {
+    private final boolean enabled;
+    private final LongAdder value = new LongAdder();
+
+    private Counter(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+      if (enabled) {
+        value.increment();
+      }
+    }
+
+    /**
+     * Adds an amount to the count.
+     *
+     * @param amount the amount to add
+     */
+    public void add(long amount) {
+      if (enabled) {
+        value.add(amount);
+      }
+    }
+
+    /**
+     * Returns the count.
+     *
+     * @return the sum of everything added so far
+     */
+    public long get() {
+      return value.sum();
+    }
+  }
+
+  /**
+   * A distribution of non-negative values, such as durations in nanoseconds, kept in 64 buckets
+   * where bucket i holds the values whose highest set bit is bit i - 1 (bucket 0 holds zero).
+   * Recording a value is a few atomic adds and never allocates.
+   */
+  public static final class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final boolean enabled;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    private Histogram(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Records a value. Negative values are recorded as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+      if (enabled) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(v)));
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+      }
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count of values
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+      long n = count.sum();
+      return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+      return max.get();
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the values: the largest value that
+     * falls in the bucket holding that percentile.
+     *
+     * @param fraction the percentile as a fraction from 0 to 1
+     * @return the upper bound of the bucket, or 0 if nothing was recorded
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1
+     */
+    public long getPercentile(double fraction) {
+      if (fraction < 0 || fraction > 1) {
+        throw new IllegalArgumentException("Percentile must be between 0 and 1.");
+      }
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        total += buckets.get(i);
+      }
+      long rank = (long) Math.ceil(fraction * total);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += buckets.get(i);
+        if (seen >= rank && seen > 0) {
+          long upper = i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+          return Math.min(getMax(), upper);
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Builds the flat neighbor tables used by the grids. A neighbor table holds four entries per
+ * cell, one per Direction ordinal, at index cell * 4 + direction. Each entry is the index of the
+ * adjacent card cell in that direction, or {@link #NONE} if the adjacent position is off the grid
+ * or a hole. Cells that are holes themselves have no neighbors.
+ */
+final class NeighborTable {
+  /**
+   * The entry for a direction with no card cell next to it.
+   */
+  static final int NONE = -1;
+
+  private static final int[] ROW_OFFSETS = {-1, 1, 0, 0};
+  private static final int[] COL_OFFSETS = {0, 0, 1, -1};
+
+  private NeighborTable() {
+  }
+
+  /**
+   * Builds the neighbor table for a grid.
+   *
+   * @param cardCells whether each cell, by index row * cols + col, is a card cell
+   * @param rows      the number of rows in the grid
+   * @param cols      the number of columns in the grid
+   * @return the neighbor table
+   */
+  static int[] build(boolean[] cardCells, int rows, int cols) {
+    int[] table = new int[4 * rows * cols];
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int index = row * cols + col;
+        for (int dir = 0; dir < 4; dir++) {
+          int adjRow = row + ROW_OFFSETS[dir];
+          int adjCol = col + COL_OFFSETS[dir];
+          boolean onGrid = adjRow >= 0 && adjRow < rows && adjCol >= 0 && adjCol < cols;
+          table[4 * index + dir] = cardCells[index] && onGrid
+                  && cardCells[adjRow * cols + adjCol] ? adjRow * cols + adjCol : NONE;
+        }
+      }
+    }
+    return table;
+  }
+}
@@ -0,0 +1,295 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.function.IntConsumer;
+
+/**
+ * A grid panel that draws the whole board itself in one paintComponent call instead of using a
+ * Swing component per cell, for boards with many thousands of cells. The panel keeps the state
+ * of every cell in two primitive arrays, only paints the cells inside the clip region, and
+ * repaints only the cell a change touched. Clicks are mapped to a cell by dividing by the cell
+ * size, and passed to the handler set with {@link #setCellClickHandler(IntConsumer)}.
+ *
+ * <p>The panel is meant to sit in a JScrollPane: it implements Scrollable, scrolling one cell per
+ * unit. Holding Ctrl (or Command on macOS) while turning the mouse wheel zooms in and out around
+ * the mouse position. Cards are drawn from a {@link CardImageCache}, and only when cells are
+ * large enough to read their attack values; smaller cards are drawn as plain colored cells.
+ */
+public class PaintedGridPanel extends JComponent implements ThreeTriosGridPanel, Scrollable {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The smallest cell size, in pixels.
+   */
+  public static final int MIN_CELL_SIZE = 2;
+
+  /**
+   * The largest cell size, in pixels.
+   */
+  public static final int MAX_CELL_SIZE = 160;
+
+  private static final int HOLE = -2;
+  private static final int EMPTY = -1;
+  private static final int MIN_TEXT_SIZE = 28;
+  private static final int DEFAULT_CELL_SIZE = 80;
+  private static final int DEFAULT_VIEW = 800;
+
+  private int rows;
+  private int cols;
+  private int[] cardIds = new int[0];
+  private byte[] owners = new byte[0];
+  private final CardImageCache cardImages = new CardImageCache();
+  private int cellSize = DEFAULT_CELL_SIZE;
+  private IntConsumer cellClickHandler = cell -> { };
+
+  /**
+   * Constructs an empty panel. The board appears with the first call to
+   * {@link #showPosition(PositionSnapshot)}.
+   */
+  public PaintedGridPanel() {
+    this.setOpaque(true);
+    this.setBackground(Color.WHITE);
+    MouseAdapter mouse = new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        int cell = cellAt(e.getX(), e.getY());
+        if (cell >= 0) {
+          cellClickHandler.accept(cell);
+        }
+      }
+
+      @Override
+      public void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown() || e.isMetaDown()) {
+          zoom(e.getWheelRotation() < 0 ? 1.25 : 0.8, e.getPoint());
+        } else if (getParent() != null) {
+          // a wheel listener keeps events from the scroll pane, so pass plain scrolling on
+          getParent().dispatchEvent(SwingUtilities.convertMouseEvent(
+                  PaintedGridPanel.this, e, getParent()));
+        }
+      }
+    };
+    this.addMouseListener(mouse);
+    this.addMouseWheelListener(mouse);
+  }
+
+  @Override
+  public void showPosition(PositionSnapshot snapshot) {
+    if (snapshot.getRows() != rows || snapshot.getCols() != cols) {
+      rows = snapshot.getRows();
+      cols = snapshot.getCols();
+      cardIds = new int[rows * cols];
+      owners = new byte[rows * cols];
+      // start with the whole board in view if it fits at a readable size
+      setCellSize(Math.min(DEFAULT_CELL_SIZE, DEFAULT_VIEW / Math.max(1, Math.max(rows, cols))));
+    }
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int cell = row * cols + col;
+        if (!snapshot.isCardCell(row, col)) {
+          cardIds[cell] = HOLE;
+        } else if (snapshot.isEmpty(row, col)) {
+          cardIds[cell] = EMPTY;
+        } else {
+          cardIds[cell] = snapshot.getCardIdAt(row, col);
+        }
+        owners[cell] = (byte) snapshot.getOwnerAt(row, col);
+      }
+    }
+    this.repaint();
+  }
+
+  @Override
+  public void placeCard(int cell, Card card, String owner) {
+    cardIds[cell] = CardRegistry.idOf(card);
+    owners[cell] = ownerValue(owner);
+    repaintCell(cell);
+  }
+
+  @Override
+  public void flipCards(int[] cells, String newOwner) {
+    for (int cell : cells) {
+      owners[cell] = ownerValue(newOwner);
+      repaintCell(cell);
+    }
+  }
+
+  @Override
+  public void clearCell(int cell) {
+    cardIds[cell] = EMPTY;
+    owners[cell] = PositionSnapshot.NO_OWNER;
+    repaintCell(cell);
+  }
+
+  /**
+   * Returns the cell at a point of the panel.
+   *
+   * @param x the x coordinate, in pixels
+   * @param y the y coordinate, in pixels
+   * @return the index of the cell, row * cols + col, or -1 if the point is off the board
+   */
+  public int cellAt(int x, int y) {
+    if (x < 0 || y < 0) {
+      return -1;
+    }
+    int row = y / cellSize;
+    int col = x / cellSize;
+    return row < rows && col < cols ? row * cols + col : -1;
+  }
+
+  /**
+   * Sets the code to run when a cell of the board is clicked. It is given the index of the
+   * cell, row * cols + col, and runs on the Swing event thread. Clicks off the board are
+   * ignored.
+   *
+   * @param handler the code to run with the index of a clicked cell
+   * @throws IllegalArgumentException if the handler is null
+   */
+  public void setCellClickHandler(IntConsumer handler) {
+    if (handler == null) {
+      throw new IllegalArgumentException("Click handler cannot be null.");
+    }
+    this.cellClickHandler = handler;
+  }
+
+  /**
+   * Returns the size of a cell.
+   *
+   * @return the width and height of a cell, in pixels
+   */
+  public int getCellSize() {
+    return cellSize;
+  }
+
+  /**
+   * Sets the size of a cell, clamped to {@link #MIN_CELL_SIZE} and {@link #MAX_CELL_SIZE}.
+   *
+   * @param size the width and height of a cell, in pixels
+   */
+  public void setCellSize(int size) {
+    int clamped = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, size));
+    if (clamped != cellSize) {
+      cellSize = clamped;
+      cardImages.clear();
+      this.revalidate();
+      this.repaint();
+    }
+  }
+
+  /**
+   * Changes the cell size by a factor, keeping the board point under the given position of the
+   * panel in the same place on screen when the panel is in a scroll pane.
+   *
+   * @param factor the factor to multiply the cell size by
+   * @param anchor the point of the panel to zoom around
+   */
+  public void zoom(double factor, Point anchor) {
+    int oldSize = cellSize;
+    int newSize = (int) Math.round(oldSize * factor);
+    if (newSize == oldSize) {
+      newSize += factor > 1 ? 1 : -1;
+    }
+    setCellSize(newSize);
+    if (cellSize != oldSize && getParent() instanceof JViewport) {
+      JViewport viewport = (JViewport) getParent();
+      Point view = viewport.getViewPosition();
+      int x = (int) ((long) anchor.x * cellSize / oldSize) - (anchor.x - view.x);
+      int y = (int) ((long) anchor.y * cellSize / oldSize) - (anchor.y - view.y);
+      // the new preferred size must be laid out before the view can move past the old one
+      viewport.validate();
+      viewport.setViewPosition(new Point(Math.max(0, x), Math.max(0, y)));
+    }
+  }
+
+  @Override
+  public Dimension getPreferredSize() {
+    return new Dimension(cols * cellSize, rows * cellSize);
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    g.setColor(getBackground());
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+    if (rows == 0 || cols == 0) {
+      return;
+    }
+    int firstRow = Math.max(0, clip.y / cellSize);
+    int lastRow = Math.min(rows - 1, (clip.y + clip.height - 1) / cellSize);
+    int firstCol = Math.max(0, clip.x / cellSize);
+    int lastCol = Math.min(cols - 1, (clip.x + clip.width - 1) / cellSize);
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int col = firstCol; col <= lastCol; col++) {
+        paintCell(g, row * cols + col, col * cellSize, row * cellSize);
+      }
+    }
+  }
+
+  private void paintCell(Graphics g, int cell, int x, int y) {
+    int id = cardIds[cell];
+    if (id >= 0 && cellSize >= MIN_TEXT_SIZE) {
+      g.drawImage(cardImages.getImage(id, ownerColor(owners[cell]), cellSize, cellSize),
+              x, y, null);
+      return;
+    }
+    if (id == HOLE) {
+      g.setColor(Color.DARK_GRAY);
+    } else if (id == EMPTY) {
+      g.setColor(Color.LIGHT_GRAY);
+    } else {
+      g.setColor(ownerColor(owners[cell]));
+    }
+    g.fillRect(x, y, cellSize, cellSize);
+    if (cellSize >= 4) {
+      g.setColor(id >= 0 ? Color.BLACK : Color.GRAY);
+      g.drawRect(x, y, cellSize - 1, cellSize - 1);
+    }
+  }
+
+  private static Color ownerColor(byte owner) {
+    return owner == PositionSnapshot.RED ? Color.PINK : Color.CYAN;
+  }
+
+  private void repaintCell(int cell) {
+    this.repaint((cell % cols) * cellSize, (cell / cols) * cellSize, cellSize, cellSize);
+  }
+
+  private static byte ownerValue(String owner) {
+    return (byte) (owner.equalsIgnoreCase("Red") ? PositionSnapshot.RED : PositionSnapshot.BLUE);
+  }
+
+  @Override
+  public Dimension getPreferredScrollableViewportSize() {
+    Dimension preferred = getPreferredSize();
+    return new Dimension(Math.min(preferred.width, DEFAULT_VIEW),
+            Math.min(preferred.height, DEFAULT_VIEW));
+  }
+
+  @Override
+  public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+    return cellSize;
+  }
+
+  @Override
+  public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+    int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    return Math.max(cellSize, extent - cellSize);
+  }
+
+  @Override
+  public boolean getScrollableTracksViewportWidth() {
+    return getParent() instanceof JViewport
+            && getParent().getWidth() > getPreferredSize().width;
+  }
+
+  @Override
+  public boolean getScrollableTracksViewportHeight() {
+    return getParent() instanceof JViewport
+            && getParent().getHeight() > getPreferredSize().height;
+  }
+}
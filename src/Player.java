@@ -1,13 +1,15 @@
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * This class represents a player in the Three Trios game.
- * The Player class implements the IntPlayer interface.
+ * The Player class implements the IntPlayer interface. The player's cards are kept in a
+ * {@link Hand}: taking a card out of its slot and putting it back, as search code does through
+ * {@link #getSlots()}, takes constant time, while the methods that take a position in the hand
+ * look up its slot first.
  */
 public class Player implements IntPlayer {
   private final String color;
-  private final List<Card> hand;
+  private final Hand hand;
 
   /**
    * Constructs a new Player with a specified color and an empty hand.
@@ -16,7 +18,12 @@ public class Player implements IntPlayer {
    */
   public Player(String color) {
     this.color = color;
-    this.hand = new ArrayList<>();
+    this.hand = new Hand(16);
+  }
+
+  private Player(String color, Hand hand) {
+    this.color = color;
+    this.hand = hand;
   }
 
   public String getColor() {
@@ -33,14 +40,115 @@ public class Player implements IntPlayer {
    * @param card the card to be removed from the player's hand
    */
   public void removeCardFromHand(Card card) {
-    if (hand.isEmpty()) {
+    if (hand.size() == 0) {
       throw new IllegalArgumentException("Hand is empty");
     }
-    hand.remove(card);
+    int slot = hand.find(card);
+    if (slot >= 0) {
+      hand.remove(slot);
+    }
+  }
+
+  /**
+   * Removes the card at the given position in the player's hand.
+   *
+   * @param index the position of the card in the hand
+   * @return the removed card
+   * @throws IndexOutOfBoundsException if the index is not a position in the hand
+   */
+  public Card removeCardAt(int index) {
+    int slot = hand.slotOf(index);
+    hand.remove(slot);
+    return hand.getCard(slot);
+  }
+
+  /**
+   * Puts a card back into the player's hand at the given position, shifting later cards along.
+   * This is the reverse of {@link #removeCardAt(int)}, and refills the slot the card was taken
+   * from.
+   *
+   * @param index the position the card had in the hand
+   * @param card  the card to put back
+   */
+  public void restoreCard(int index, Card card) {
+    int slot = hand.findRemoved(index, card);
+    if (slot >= 0) {
+      hand.restore(slot);
+    } else {
+      hand.insert(index, card);
+    }
+  }
+
+  /**
+   * Returns the number of cards in the player's hand without copying the hand.
+   *
+   * @return the number of cards in the hand
+   */
+  public int getHandSize() {
+    return hand.size();
+  }
+
+  /**
+   * Returns the position in the player's hand of the given card, compared by identity.
+   *
+   * @param card the card to look for
+   * @return the position of the card, or -1 if it is not in the hand
+   */
+  public int indexOfCard(Card card) {
+    int slot = hand.find(card);
+    return slot < 0 ? -1 : hand.indexOf(slot);
   }
 
+  /**
+   * Returns the card at the given position in the player's hand without copying the hand.
+   *
+   * @param index the position of the card in the hand
+   * @return the card at that position
+   */
+  public Card getCardAt(int index) {
+    return hand.getCard(hand.slotOf(index));
+  }
+
+  /**
+   * Returns the card in the given slot of the player's hand, whether or not it has been taken
+   * out. Encoded moves name the card to play by its slot.
+   *
+   * @param slot a slot of the hand, see {@link Hand}
+   * @return the card added in that slot
+   */
+  public Card getCardInSlot(int slot) {
+    return hand.getCard(slot);
+  }
+
+  /**
+   * Returns the slots of the player's hand, for code that takes cards out and puts them back
+   * by slot. Changing the hand this way changes the player's hand.
+   *
+   * @return the hand itself
+   */
+  public Hand getSlots() {
+    return hand;
+  }
+
+  /**
+   * Returns a new player with the same color and a copy of this player's hand.
+   *
+   * @return a copy of this player
+   */
+  public Player copy() {
+    return new Player(color, hand.copy());
+  }
+
+  /**
+   * Returns the cards in the player's hand as an unmodifiable view. The view is not a copy:
+   * it shows the cards the player holds at the time it is read. Reading it by position may
+   * update the hand's list of occupied slots, so it must be read on the thread that plays the
+   * game.
+   *
+   * @return a live, read-only list of the cards in the hand
+   */
   public List<Card> getHand() {
-    return new ArrayList<>(hand);
+    return hand.asList();
   }
 
   /**
@@ -49,7 +157,11 @@ public class Player implements IntPlayer {
    * @param cards the list of cards to set as the player's hand
    */
   public void setHand(List<Card> cards) {
+    // copy first, in case the list is this player's own hand view
+    Card[] added = cards.toArray(new Card[0]);
     hand.clear();
-    hand.addAll(cards);
+    for (Card card : added) {
+      hand.add(card);
+    }
   }
 }
@@ -0,0 +1,333 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable picture of a game position, for readers on other threads such as a view, a
+ * spectator feed or a background strategy. A {@link Game} publishes a new snapshot after every
+ * turn through a volatile field, so a reader gets a consistent position from
+ * {@link Game#getSnapshot()} without taking a lock, while the game goes on changing its grid.
+ *
+ * <p>A snapshot holds only primitives: one int per cell of the grid and the {@link CardRegistry}
+ * ids of the cards in both hands. The snapshot of a turn is made from the snapshot before it by
+ * copying the cell array and changing the cells the move touched; the hand of the player who did
+ * not move is shared with the previous snapshot. The arrays are never changed after a snapshot is
+ * made and are never handed out.
+ */
+public final class PositionSnapshot {
+  /**
+   * The owner value of an empty card cell or a hole.
+   */
+  public static final int NO_OWNER = 0;
+
+  /**
+   * The owner value of a card owned by the red player.
+   */
+  public static final int RED = 1;
+
+  /**
+   * The owner value of a card owned by the blue player.
+   */
+  public static final int BLUE = 2;
+
+  private static final int HOLE = -1;
+  private static final int EMPTY = 0;
+  private static final int OWNER_BITS = 2;
+
+  private final int rows;
+  private final int cols;
+  private final int[] cells;
+  private final int[] redHand;
+  private final int[] blueHand;
+  private final boolean redToMove;
+  private final int moveCount;
+  private final long positionKey;
+
+  private PositionSnapshot(int rows, int cols, int[] cells, int[] redHand, int[] blueHand,
+                           boolean redToMove, int moveCount, long positionKey) {
+    this.rows = rows;
+    this.cols = cols;
+    this.cells = cells;
+    this.redHand = redHand;
+    this.blueHand = blueHand;
+    this.redToMove = redToMove;
+    this.moveCount = moveCount;
+    this.positionKey = positionKey;
+  }
+
+  /**
+   * Takes a snapshot of a whole position.
+   *
+   * @param grid        the grid of the game
+   * @param red         the red player
+   * @param blue        the blue player
+   * @param redToMove   whether the red player moves next
+   * @param moveCount   the number of moves played so far
+   * @param positionKey the Zobrist key of the position
+   * @return the snapshot
+   */
+  static PositionSnapshot of(IntGrid grid, Player red, Player blue, boolean redToMove,
+                             int moveCount, long positionKey) {
+    int[] cells = new int[grid.getRows() * grid.getCols()];
+    for (int index = 0; index < cells.length; index++) {
+      cells[index] = grid.getCell(index / grid.getCols(), index % grid.getCols()).isCardCell()
+              ? encode(grid, index, red, blue) : HOLE;
+    }
+    return new PositionSnapshot(grid.getRows(), grid.getCols(), cells, handIds(red),
+            handIds(blue), redToMove, moveCount, positionKey);
+  }
+
+  /**
+   * Takes the snapshot of the position after a move, starting from the snapshot of the position
+   * before it. Only the cell the card was placed in and the cells of the cards it flipped are
+   * read from the grid, and only the mover's hand is read again.
+   *
+   * @param grid        the grid of the game, after the move
+   * @param red         the red player
+   * @param blue        the blue player
+   * @param mover       the player who made the move
+   * @param cell        the index of the cell the card was placed in
+   * @param flipMask    the directions of the flipped cards, one bit per Direction ordinal
+   * @param positionKey the Zobrist key of the position after the move
+   * @return the snapshot of the position after the move
+   */
+  PositionSnapshot afterMove(IntGrid grid, Player red, Player blue, Player mover, int cell,
+                             int flipMask, long positionKey) {
+    return patch(grid, red, blue, mover, cell, flipMask, mover != red, moveCount + 1,
+            positionKey);
+  }
+
+  /**
+   * Takes the snapshot of the position before a move that was taken back, starting from the
+   * snapshot of the position after it, in the same way as
+   * {@link #afterMove(IntGrid, Player, Player, Player, int, int, long)}.
+   *
+   * @param grid        the grid of the game, after the move was taken back
+   * @param red         the red player
+   * @param blue        the blue player
+   * @param mover       the player whose move was taken back
+   * @param cell        the index of the cell that was emptied
+   * @param flipMask    the directions of the cards that were flipped back
+   * @param positionKey the Zobrist key of the position before the move
+   * @return the snapshot of the position before the move
+   */
+  PositionSnapshot beforeMove(IntGrid grid, Player red, Player blue, Player mover, int cell,
+                              int flipMask, long positionKey) {
+    return patch(grid, red, blue, mover, cell, flipMask, mover == red, moveCount - 1,
+            positionKey);
+  }
+
+  private PositionSnapshot patch(IntGrid grid, Player red, Player blue, Player mover, int cell,
+                                 int flipMask, boolean redNext, int moves, long key) {
+    int[] next = cells.clone();
+    next[cell] = encode(grid, cell, red, blue);
+    for (int dir = 0; dir < 4; dir++) {
+      if ((flipMask & (1 << dir)) != 0) {
+        int adj = grid.getNeighbor(cell, dir);
+        next[adj] = encode(grid, adj, red, blue);
+      }
+    }
+    boolean redMoved = mover == red;
+    return new PositionSnapshot(rows, cols, next,
+            redMoved ? handIds(red) : redHand, redMoved ? blueHand : handIds(blue),
+            redNext, moves, key);
+  }
+
+  private static int encode(IntGrid grid, int index, Player red, Player blue) {
+    int id = grid.getCardIdAt(index);
+    if (id < 0) {
+      return EMPTY;
+    }
+    Player owner = grid.getOwnerAt(index);
+    int ownerValue = owner == red ? RED : owner == blue ? BLUE : NO_OWNER;
+    return (id + 1) << OWNER_BITS | ownerValue;
+  }
+
+  private static int[] handIds(Player player) {
+    return player.getSlots().getCardIds();
+  }
+
+  /**
+   * Returns the number of rows of the grid.
+   *
+   * @return the number of rows
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the number of columns of the grid.
+   *
+   * @return the number of columns
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Returns whether the cell at the given position is a card cell rather than a hole.
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return true if the cell can hold a card
+   * @throws IllegalArgumentException if the position is not on the grid
+   */
+  public boolean isCardCell(int row, int col) {
+    return cells[index(row, col)] != HOLE;
+  }
+
+  /**
+   * Returns whether the cell at the given position is a card cell that holds no card.
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return true if a card can be played in the cell
+   * @throws IllegalArgumentException if the position is not on the grid
+   */
+  public boolean isEmpty(int row, int col) {
+    return cells[index(row, col)] == EMPTY;
+  }
+
+  /**
+   * Returns the {@link CardRegistry} id of the card in the cell at the given position.
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return the id of the card, or -1 if the cell is empty or a hole
+   * @throws IllegalArgumentException if the position is not on the grid
+   */
+  public int getCardIdAt(int row, int col) {
+    int value = cells[index(row, col)];
+    return value > 0 ? (value >>> OWNER_BITS) - 1 : -1;
+  }
+
+  /**
+   * Returns the card in the cell at the given position.
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return the canonical instance of the card, or null if the cell is empty or a hole
+   * @throws IllegalArgumentException if the position is not on the grid
+   */
+  public Card getCardAt(int row, int col) {
+    int id = getCardIdAt(row, col);
+    return id < 0 ? null : CardRegistry.getCard(id);
+  }
+
+  /**
+   * Returns the owner of the card in the cell at the given position.
+   *
+   * @param row the row of the cell
+   * @param col the column of the cell
+   * @return {@link #RED}, {@link #BLUE} or {@link #NO_OWNER}
+   * @throws IllegalArgumentException if the position is not on the grid
+   */
+  public int getOwnerAt(int row, int col) {
+    int value = cells[index(row, col)];
+    return value > 0 ? value & ((1 << OWNER_BITS) - 1) : NO_OWNER;
+  }
+
+  /**
+   * Returns the number of cards a player owns on the grid.
+   *
+   * @param owner {@link #RED} or {@link #BLUE}
+   * @return the number of cells holding a card of that owner
+   */
+  public int getOwnedCount(int owner) {
+    int count = 0;
+    for (int value : cells) {
+      if (value > 0 && (value & ((1 << OWNER_BITS) - 1)) == owner) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of cards in a player's hand.
+   *
+   * @param owner {@link #RED} or {@link #BLUE}
+   * @return the hand size
+   * @throws IllegalArgumentException if the owner is neither red nor blue
+   */
+  public int getHandSize(int owner) {
+    return hand(owner).length;
+  }
+
+  /**
+   * Returns the {@link CardRegistry} id of a card in a player's hand.
+   *
+   * @param owner {@link #RED} or {@link #BLUE}
+   * @param slot  the position of the card in the hand
+   * @return the id of the card
+   * @throws IllegalArgumentException  if the owner is neither red nor blue
+   * @throws IndexOutOfBoundsException if the slot is not a position in the hand
+   */
+  public int getHandCardId(int owner, int slot) {
+    int[] hand = hand(owner);
+    if (slot < 0 || slot >= hand.length) {
+      throw new IndexOutOfBoundsException("No card at hand position " + slot);
+    }
+    return hand[slot];
+  }
+
+  /**
+   * Returns the cards in a player's hand.
+   *
+   * @param owner {@link #RED} or {@link #BLUE}
+   * @return an unmodifiable list of the canonical instances of the cards, in hand order
+   * @throws IllegalArgumentException if the owner is neither red nor blue
+   */
+  public List<Card> getHand(int owner) {
+    int[] hand = hand(owner);
+    List<Card> cards = new ArrayList<>(hand.length);
+    for (int id : hand) {
+      cards.add(CardRegistry.getCard(id));
+    }
+    return Collections.unmodifiableList(cards);
+  }
+
+  /**
+   * Returns the player who moves next.
+   *
+   * @return {@link #RED} or {@link #BLUE}
+   */
+  public int getPlayerToMove() {
+    return redToMove ? RED : BLUE;
+  }
+
+  /**
+   * Returns the number of moves played to reach this position since the game was set up.
+   *
+   * @return the number of moves
+   */
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  /**
+   * Returns the Zobrist key the game had for this position.
+   *
+   * @return the position key
+   */
+  public long getPositionKey() {
+    return positionKey;
+  }
+
+  private int[] hand(int owner) {
+    if (owner == RED) {
+      return redHand;
+    } else if (owner == BLUE) {
+      return blueHand;
+    }
+    throw new IllegalArgumentException("Invalid owner: " + owner);
+  }
+
+  private int index(int row, int col) {
+    if (row < 0 || row >= rows || col < 0 || col >= cols) {
+      throw new IllegalArgumentException("Invalid cell coordinates");
+    }
+    return row * cols + col;
+  }
+}
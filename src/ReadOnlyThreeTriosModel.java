@@ -20,4 +20,26 @@ public interface ReadOnlyThreeTriosModel {
   boolean isGameOver();
 
   int getPlayerScore(String color);
+
+  /**
+   * Returns an immutable snapshot of the position after the most recent turn, which can be read
+   * from any thread without locking while the game goes on.
+   *
+   * @return the latest snapshot of the game
+   */
+  PositionSnapshot getSnapshot();
+
+  /**
+   * Registers a listener to be told about the changes made to the game from now on.
+   *
+   * @param listener the listener
+   */
+  void addGameListener(GameListener listener);
+
+  /**
+   * Unregisters a listener added with {@link #addGameListener(GameListener)}.
+   *
+   * @param listener the listener
+   */
+  void removeGameListener(GameListener listener);
 }
@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for one call of a strategy made through an
+ * {@link InstrumentedStrategy}. The duration of the event is the time the strategy took to
+ * choose and play its move.
+ */
+@Name("threetrios.StrategyMove")
+@Label("Strategy Move")
+@Category("Three Trios")
+@Description("A move chosen and played by a strategy")
+final class StrategyEvent extends Event {
+  @Label("Strategy")
+  String strategy;
+
+  @Label("Method")
+  String method;
+
+  @Label("Player")
+  String player;
+
+  @Label("Nodes")
+  @Description("Positions or playouts searched, as reported by the strategy")
+  long nodes;
+
+  @Label("Row")
+  @Description("Row of the card played, or -1 if no move was played")
+  int row;
+
+  @Label("Column")
+  @Description("Column of the card played, or -1 if no move was played")
+  int col;
+
+  @Label("Hand Slot")
+  @Description("Slot the card played had in the mover's hand, which stays the same as other "
+          + "cards leave the hand, or -1 if no move was played")
+  int slot;
+}
@@ -1,9 +1,59 @@
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * A simple text-based view class for rendering the current game state.
  * Displays the grid, indicating card cells, holes, and occupied cells with player ownership.
  * Also displays the current player's hand of cards with attack values.
+ *
+ * <p>Each frame is built in memory and written to the output with a single append, followed by
+ * a flush if the output is {@link Flushable}, so logging every turn of a long run to a file or
+ * pipe costs one write per turn. In diff mode the view assumes it owns an ANSI terminal: the
+ * first frame clears the screen, and each later frame only moves the cursor to the cells, the
+ * player line and the hand lines that changed since the previous frame and rewrites those.
  */
 public class TextView {
+  private static final String ESC = "\u001b[";
+
+  private final Appendable out;
+  private final boolean diffMode;
+  private final StringBuilder frame = new StringBuilder();
+  private char[] shownCells;
+  private int shownCols;
+  private String shownPlayer;
+  private String[] shownHand;
+
+  /**
+   * Constructs a view that prints full frames to the standard output, as it is when each frame
+   * is rendered.
+   */
+  public TextView() {
+    this(null, false);
+  }
+
+  /**
+   * Constructs a view that writes full frames to the given output.
+   *
+   * @param out the output to write frames to
+   */
+  public TextView(Appendable out) {
+    this(out, false);
+  }
+
+  /**
+   * Constructs a view that writes frames to the given output.
+   *
+   * @param out      the output to write frames to, or null for the standard output
+   * @param diffMode whether to write only the changes since the previous frame, using ANSI
+   *                 cursor movement
+   */
+  public TextView(Appendable out, boolean diffMode) {
+    this.out = out;
+    this.diffMode = diffMode;
+  }
 
   /**
    * Renders the current game state, including the grid layout and the current player's hand.
@@ -16,32 +66,150 @@ public class TextView {
    * - The current player's hand with each card's name and attack values for
    * North, South, East, and West.
    *
-   * @param grid          the Grid object representing the current game grid
+   * @param grid          the grid representing the current game grid
    * @param currentPlayer the Player whose turn it currently is
+   * @throws UncheckedIOException if the frame cannot be written
    */
-  public void render(Grid grid, Player currentPlayer) {
-    System.out.println("Player: " + currentPlayer.getColor().toUpperCase());
-
-
-    for (int i = 0; i < grid.getRows(); i++) {
-      for (int j = 0; j < grid.getCols(); j++) {
+  public void render(IntGrid grid, Player currentPlayer) {
+    int rows = grid.getRows();
+    int cols = grid.getCols();
+    char[] cells = new char[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
         Cell cell = grid.getCell(i, j);
         if (!cell.isCardCell()) {
-          System.out.print(" X ");
+          cells[i * cols + j] = 'X';
         } else if (cell.isEmpty()) {
-          System.out.print(" _ ");
+          cells[i * cols + j] = '_';
+        } else {
+          cells[i * cols + j] = cell.getOwner().getColor().charAt(0);
+        }
+      }
+    }
+    List<Card> hand = currentPlayer.getHand();
+    String[] handLines = new String[hand.size()];
+    for (int i = 0; i < handLines.length; i++) {
+      handLines[i] = describe(hand.get(i));
+    }
+    write(currentPlayer.getColor().toUpperCase(), cells, cols, handLines);
+  }
+
+  /**
+   * Renders a snapshot of a game in the same form as {@link #render(IntGrid, Player)}, showing
+   * the hand of the player to move. Snapshots never change, so this can run on any thread while
+   * the game goes on.
+   *
+   * @param snapshot the position to render
+   * @throws UncheckedIOException if the frame cannot be written
+   */
+  public void render(PositionSnapshot snapshot) {
+    int rows = snapshot.getRows();
+    int cols = snapshot.getCols();
+    char[] cells = new char[rows * cols];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < cols; j++) {
+        if (!snapshot.isCardCell(i, j)) {
+          cells[i * cols + j] = 'X';
+        } else if (snapshot.isEmpty(i, j)) {
+          cells[i * cols + j] = '_';
         } else {
-          System.out.print(" " + cell.getOwner().getColor().charAt(0) + " ");
+          cells[i * cols + j] = snapshot.getOwnerAt(i, j) == PositionSnapshot.RED ? 'R' : 'B';
         }
       }
-      System.out.println();
     }
-    System.out.println("Hand:");
-    for (Card card : currentPlayer.getHand()) {
-      System.out.println(card.getName() + " " + card.getAttackValue(Direction.NORTH) + " " +
-              card.getAttackValue(Direction.SOUTH) + " " +
-              card.getAttackValue(Direction.EAST) + " " +
-              card.getAttackValue(Direction.WEST));
+    int player = snapshot.getPlayerToMove();
+    String[] handLines = new String[snapshot.getHandSize(player)];
+    for (int i = 0; i < handLines.length; i++) {
+      handLines[i] = describe(CardRegistry.getCard(snapshot.getHandCardId(player, i)));
     }
+    write(player == PositionSnapshot.RED ? "RED" : "BLUE", cells, cols, handLines);
+  }
+
+  private static String describe(Card card) {
+    return card.getName() + " " + card.getAttackValue(Direction.NORTH) + " "
+            + card.getAttackValue(Direction.SOUTH) + " "
+            + card.getAttackValue(Direction.EAST) + " "
+            + card.getAttackValue(Direction.WEST);
+  }
+
+  /**
+   * Builds a frame, in full or as changes to the previous frame, and writes it.
+   */
+  private void write(String player, char[] cells, int cols, String[] handLines) {
+    frame.setLength(0);
+    if (!diffMode) {
+      appendFull(player, cells, cols, handLines);
+    } else if (shownCells == null || shownCells.length != cells.length || shownCols != cols) {
+      frame.append(ESC).append("2J").append(ESC).append("H");
+      appendFull(player, cells, cols, handLines);
+    } else {
+      appendChanges(player, cells, cols, handLines);
+    }
+    shownCells = cells;
+    shownCols = cols;
+    shownPlayer = player;
+    shownHand = handLines;
+
+    Appendable target = out == null ? System.out : out;
+    try {
+      target.append(frame);
+      if (target instanceof Flushable) {
+        ((Flushable) target).flush();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the frame.", e);
+    }
+  }
+
+  private void appendFull(String player, char[] cells, int cols, String[] handLines) {
+    String newline = System.lineSeparator();
+    frame.append("Player: ").append(player).append(newline);
+    for (int i = 0; i < cells.length; i++) {
+      frame.append(' ').append(cells[i]).append(' ');
+      if ((i + 1) % cols == 0) {
+        frame.append(newline);
+      }
+    }
+    frame.append("Hand:").append(newline);
+    for (String line : handLines) {
+      frame.append(line).append(newline);
+    }
+  }
+
+  /**
+   * Appends cursor movements and text that turn the previous frame on screen into this one.
+   * Screen lines and columns start at 1: the player is on line 1, grid row i on line i + 2 with
+   * the cell in column j at screen column 3 * j + 2, and the hand starts two lines below the grid.
+   */
+  private void appendChanges(String player, char[] cells, int cols, String[] handLines) {
+    if (!player.equals(shownPlayer)) {
+      moveTo(1, 1);
+      frame.append("Player: ").append(player).append(ESC).append('K');
+    }
+    for (int i = 0; i < cells.length; i++) {
+      if (cells[i] != shownCells[i]) {
+        moveTo(i / cols + 2, 3 * (i % cols) + 2);
+        frame.append(cells[i]);
+      }
+    }
+    int handLine = (cols == 0 ? 0 : cells.length / cols) + 3;
+    if (!Arrays.equals(handLines, shownHand)) {
+      for (int i = 0; i < handLines.length; i++) {
+        if (i >= shownHand.length || !handLines[i].equals(shownHand[i])) {
+          moveTo(handLine + i, 1);
+          frame.append(handLines[i]).append(ESC).append('K');
+        }
+      }
+      if (handLines.length < shownHand.length) {
+        moveTo(handLine + handLines.length, 1);
+        frame.append(ESC).append('J');
+      }
+    }
+    // leave the cursor where a full frame would have left it
+    moveTo(handLine + handLines.length, 1);
+  }
+
+  private void moveTo(int line, int column) {
+    frame.append(ESC).append(line).append(';').append(column).append('H');
   }
 }
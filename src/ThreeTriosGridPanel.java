@@ -1,6 +1,40 @@
 /**
  * Interface for the grid panel of the game board in Three Trios.
- * This interface describes what the grid panel should be capable of.
+ * This interface describes what the grid panel should be capable of: showing a whole position,
+ * and applying the changes of a single turn to the cells they touch. Cells are given by their
+ * index, row * cols + col, as in {@link GameListener}. All methods are called on the Swing event
+ * thread.
  */
 public interface ThreeTriosGridPanel {
+
+  /**
+   * Shows every cell of a position, resizing the grid if its dimensions changed.
+   *
+   * @param snapshot the position to show
+   */
+  void showPosition(PositionSnapshot snapshot);
+
+  /**
+   * Shows a card in a cell.
+   *
+   * @param cell  the index of the cell
+   * @param card  the card placed
+   * @param owner the color of the card's owner
+   */
+  void placeCard(int cell, Card card, String owner);
+
+  /**
+   * Shows the cards in the given cells as belonging to a new owner.
+   *
+   * @param cells    the indices of the cells
+   * @param newOwner the color of the new owner
+   */
+  void flipCards(int[] cells, String newOwner);
+
+  /**
+   * Shows a cell as empty again.
+   *
+   * @param cell the index of the cell
+   */
+  void clearCell(int cell);
 }
@@ -10,4 +10,22 @@ public interface ThreeTriosStrategy {
      * @param color the color of the player making the move
      */
     void bestCorner (String color, Game game);
+
+    /**
+     * makes the move this strategy considers best overall,
+     * by default the move that will flip the most cards
+     * @param color the color of the player making the move
+     */
+    default void playMove (String color, Game game) {
+        flipMost(color, game);
+    }
+
+    /**
+     * returns how much searching the last call did: positions visited for tree searches,
+     * playouts for Monte Carlo searches, and 0 for strategies that do not search
+     * @return the work done by the last call
+     */
+    default long getNodeCount() {
+        return 0;
+    }
 }
@@ -3,52 +3,21 @@ import java.util.List;
 public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
     @Override
     public void flipMost(String color, Game game) {
-        // var declarations
-        int dim[] = game.getGridDimensions();
-        int bestIdx = 0;
-        int bestCoords[] = {0, 0};
-        int bestFlipCount = 0;
-
-        // creates playerHand based on color of player making turn
-        List<Card> playerHand = color.equals("Red") ? game.getRedPlayerHand() : game.getBluePlayerHand();
-
-        // goes through each cell on board
-        // any cell that is a valid move is tested to check
-        // if it could potentially be the optimal move
-        for (int i = 0; i < dim[0]; i++) {
-            for (int j = 0; j < dim[1]; j++) {
-                Cell currentCell = (Cell) game.getCellContents(i, j);
-                if (currentCell.isCardCell() && currentCell.isEmpty()) {
-                    int highestFlips = 0;
-                    int highestIdx = 0;
-
-                    for (int k = 0; k < playerHand.size(); k++) {
-                        int count = game.getFlipCount(0, i, j);
-                        if (count > highestFlips) {
-                            highestIdx = k;
-                            highestFlips = count;
-                        }
-                    }
-
-                    // if the number of flips is beaten
-                    // it is set as highest and its info saved
-                    if (highestFlips > bestFlipCount) {
-                        bestFlipCount = highestFlips;
-                        bestIdx = highestIdx;
-                        bestCoords[0] = i;
-                        bestCoords[1] = j;
-                    }
-                }
-            }
+        // the game's flip matrix already holds the flip count of every
+        // hand card in every empty cell, so the best move is a single scan
+        Player player = game.getCurrentPlayer();
+        if (!player.getColor().equalsIgnoreCase(color)) {
+            throw new IllegalArgumentException("It is not " + color + "'s turn.");
+        }
+        int move = game.getFlipMatrix().bestMove(player);
+        if (move < 0) {
+            throw new IllegalArgumentException("The game is over.");
         }
+        int cols = game.getGridDimensions()[1];
+        int cell = Game.moveCell(move);
 
         // makes the most optimal move for flipping cards
-        // in accordance with the color provided
-        if (color.equals("Red")) {
-            game.playTurn(bestCoords[0], bestCoords[1], game.getRedPlayerHand().get(bestIdx));
-        } else {
-            game.playTurn(bestCoords[0], bestCoords[1], game.getBluePlayerHand().get(bestIdx));
-        }
+        game.playTurn(cell / cols, cell % cols, player.getCardInSlot(Game.moveSlot(move)));
     }
 
 
@@ -63,11 +32,11 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
 
         if(color.equals("Red")){
             hand = game.getRedPlayerHand();
-            handSize = game.getRedPlayerHand().size();
+            handSize = hand.size();
         }
         if(color.equals("Blue")){
             hand = game.getBluePlayerHand();
-            handSize = game.getBluePlayerHand().size();
+            handSize = hand.size();
         }
 
         //test top-left
@@ -76,10 +45,10 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
                 break;
             }
             Card current = hand.get(i);
-            Card eastCard = (Card) game.getCellContents(0, 1);
+            Card eastCard = game.getCellContents(0, 1).getCard();
             int eastAtck = eastCard.getAttackValue(Direction.WEST);
 
-            Card southCard = (Card) game.getCellContents(1,0);
+            Card southCard = game.getCellContents(1,0).getCard();
             int southAtck = southCard.getAttackValue(Direction.NORTH);
 
             int aggregate = (current.getAttackValue(Direction.EAST) - eastAtck) +
@@ -99,10 +68,10 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
                 break;
             }
             Card current = hand.get(i);
-            Card westCard = (Card) game.getCellContents(0, dim[1] - 1);
+            Card westCard = game.getCellContents(0, dim[1] - 1).getCard();
             int westAtck = westCard.getAttackValue(Direction.EAST);
 
-            Card southCard = (Card) game.getCellContents(1,dim[1]);
+            Card southCard = game.getCellContents(1,dim[1]).getCard();
             int southAtck = southCard.getAttackValue(Direction.NORTH);
 
             int aggregate = (current.getAttackValue(Direction.WEST) - westAtck) +
@@ -122,10 +91,10 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
                 break;
             }
             Card current = hand.get(i);
-            Card eastCard = (Card) game.getCellContents(dim[0], 1);
+            Card eastCard = game.getCellContents(dim[0], 1).getCard();
             int eastAtck = eastCard.getAttackValue(Direction.WEST);
 
-            Card northCard = (Card) game.getCellContents(dim[0] -1,0);
+            Card northCard = game.getCellContents(dim[0] -1,0).getCard();
             int northAtck = northCard.getAttackValue(Direction.SOUTH);
 
             int aggregate = (current.getAttackValue(Direction.EAST) - eastAtck) +
@@ -145,10 +114,10 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
                 break;
             }
             Card current = hand.get(i);
-            Card westCard = (Card) game.getCellContents(dim[0], dim[1]);
+            Card westCard = game.getCellContents(dim[0], dim[1]).getCard();
             int westAtck = westCard.getAttackValue(Direction.EAST);
 
-            Card northCard = (Card) game.getCellContents(dim[0] -1,dim[1]);
+            Card northCard = game.getCellContents(dim[0] -1,dim[1]).getCard();
             int northAtck = northCard.getAttackValue(Direction.SOUTH);
 
             int aggregate = (current.getAttackValue(Direction.WEST) - westAtck) +
@@ -162,11 +131,8 @@ public class ThreeTriosStrategyImpl implements ThreeTriosStrategy {
             }
         }
 
-        if(color.equals("Red")){
-            game.playTurn(bestCoords[0], bestCoords[1], game.getRedPlayerHand().get(bestIdx));
-        }
-        if(color.equals("Blue")){
-            game.playTurn(bestCoords[0], bestCoords[1], game.getBluePlayerHand().get(bestIdx));
+        if(color.equals("Red") || color.equals("Blue")){
+            game.playTurn(bestCoords[0], bestCoords[1], hand.get(bestIdx));
         }
     }
 }
\ No newline at end of file
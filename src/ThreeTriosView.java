@@ -1,5 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
@@ -7,14 +9,27 @@ import java.util.List;
 /**
  * The main view class for the Three Trios game, extending JFrame and implementing ThreeTriosFrame.
  * This class sets up the game interface with a grid panel, player hands, and a current player label.
- * It can also update the view to reflect changes when cards are placed or flipped.
+ * It listens to the model for {@link GameListener} events and updates only the cells and hand cards
+ * a turn changed, so the cost of an update does not grow with the size of the board.
+ * Boards with more than {@link #PAINTED_GRID_CELLS} cells are drawn by a
+ * {@link PaintedGridPanel} in a scroll pane instead of with a component per cell. Cards are
+ * drawn from a {@link CardImageCache}, which is cleared whenever the window is resized.
  */
 public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of cells above which the view draws the grid with a {@link PaintedGridPanel}.
+   */
+  public static final int PAINTED_GRID_CELLS = 1024;
+
   private final ReadOnlyThreeTriosModel model;
   private JPanel selectedCardButton = null;
-  private final GridPanel gridPanel;
+  private final ThreeTriosGridPanel gridPanel;
   private final HandPanel redHandPanel;
   private final HandPanel blueHandPanel;
+  private final JLabel currentPlayerLabel;
+  private final CardImageCache cardImages = new CardImageCache();
 
   /**
    * Constructs a new ThreeTriosView with the given model.
@@ -22,6 +37,17 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
    * @param model the read-only model representing the state of the game
    */
   public ThreeTriosView(ReadOnlyThreeTriosModel model) {
+    this(model, model.getGridDimensions()[0] * model.getGridDimensions()[1] > PAINTED_GRID_CELLS);
+  }
+
+  /**
+   * Constructs a new ThreeTriosView with the given model and the chosen kind of grid panel.
+   *
+   * @param model   the read-only model representing the state of the game
+   * @param painted whether to draw the grid with a single scrollable, zoomable
+   *                {@link PaintedGridPanel} rather than a component per cell
+   */
+  public ThreeTriosView(ReadOnlyThreeTriosModel model, boolean painted) {
     super("Three Trios Game");
     this.model = model;
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -29,18 +55,34 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
 
     JPanel mainPanel = new JPanel(new BorderLayout());
 
-    gridPanel = new GridPanel();
-    mainPanel.add(gridPanel, BorderLayout.CENTER);
+    if (painted) {
+      PaintedGridPanel paintedPanel = new PaintedGridPanel();
+      gridPanel = paintedPanel;
+      mainPanel.add(new JScrollPane(paintedPanel), BorderLayout.CENTER);
+    } else {
+      GridPanel componentPanel = new GridPanel();
+      gridPanel = componentPanel;
+      mainPanel.add(componentPanel, BorderLayout.CENTER);
+    }
 
-    redHandPanel = new HandPanel("Red", model.getRedPlayerHand());
-    blueHandPanel = new HandPanel("Blue", model.getBluePlayerHand());
+    redHandPanel = new HandPanel("Red");
+    blueHandPanel = new HandPanel("Blue");
 
     mainPanel.add(redHandPanel, BorderLayout.WEST);
     mainPanel.add(blueHandPanel, BorderLayout.EAST);
 
-    JLabel currentPlayerLabel = new JLabel("Current Player: RED", SwingConstants.CENTER);
+    currentPlayerLabel = new JLabel("", SwingConstants.CENTER);
     mainPanel.add(currentPlayerLabel, BorderLayout.NORTH);
 
+    updateView();
+    model.addGameListener(new ViewUpdater());
+    this.addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        cardImages.clear();
+      }
+    });
+
     this.add(mainPanel);
     this.pack();
     this.setVisible(true);
@@ -50,72 +92,171 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
   }
 
   /**
-   * Updates the view to reflect changes in the model, such as cards being placed or flipped.
+   * Redraws the whole view from the model's latest snapshot. Turns reported by the model are
+   * applied incrementally, so this is only needed when the position is reset.
    */
   public void updateView() {
-    gridPanel.updateGrid();
-    redHandPanel.updateHand(model.getRedPlayerHand());
-    blueHandPanel.updateHand(model.getBluePlayerHand());
+    showPosition(model.getSnapshot());
   }
 
   /**
-   * A nested class representing the grid panel in the game view.
-   * Displays the game grid with clickable cells.
+   * Redraws the whole view from the given snapshot.
    */
-  private class GridPanel extends JPanel implements ThreeTriosGridPanel {
+  private void showPosition(PositionSnapshot snapshot) {
+    gridPanel.showPosition(snapshot);
+    redHandPanel.showHand(snapshot.getHand(PositionSnapshot.RED));
+    blueHandPanel.showHand(snapshot.getHand(PositionSnapshot.BLUE));
+    showCurrentPlayer(snapshot.getPlayerToMove() == PositionSnapshot.RED ? "Red" : "Blue");
+  }
 
-    /**
-     * Constructs a new GridPanel and initializes its layout based on the model's grid dimensions.
-     */
-    public GridPanel() {
-      int[] dimensions = model.getGridDimensions();
-      this.setLayout(new GridLayout(dimensions[0], dimensions[1]));
-      populateGrid();
+  private void showCurrentPlayer(String color) {
+    currentPlayerLabel.setText("Current Player: " + color.toUpperCase());
+  }
+
+  /**
+   * Applies the model's events to the view. Events may arrive on any thread, so each one is
+   * handed to the Swing event thread, in order.
+   */
+  private class ViewUpdater implements GameListener {
+    @Override
+    public void cardPlaced(int cell, Card card, String owner) {
+      SwingUtilities.invokeLater(() -> gridPanel.placeCard(cell, card, owner));
     }
 
-    /**
-     * Populates the grid with buttons representing each cell.
-     */
-    private void populateGrid() {
-      int[] dimensions = model.getGridDimensions();
-      for (int row = 0; row < dimensions[0]; row++) {
-        for (int col = 0; col < dimensions[1]; col++) {
-          JButton cellButton = new JButton();
-          cellButton.setBackground(Color.LIGHT_GRAY);
-          cellButton.setPreferredSize(new Dimension(80, 80));
-          final int currentRow = row;
-          final int currentCol = col;
-
-          cellButton.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-              System.out.println("Grid cell clicked at: (" + currentRow + ", " + currentCol + ")");
-            }
-          });
-          this.add(cellButton);
-        }
-      }
+    @Override
+    public void cellsFlipped(int[] cells, String newOwner) {
+      SwingUtilities.invokeLater(() -> gridPanel.flipCards(cells, newOwner));
     }
 
-    /**
-     * Updates the grid to reflect the current state of the model, including placed and flipped cards.
-     */
-    public void updateGrid() {
-      this.removeAll();
-      populateGrid();
-      int[] dimensions = model.getGridDimensions();
-      for (int row = 0; row < dimensions[0]; row++) {
-        for (int col = 0; col < dimensions[1]; col++) {
-          Object card = model.getCellContents(row, col);
-          if (card != null) {
-            JPanel cardPanel = createCardPanel((Card) card);
-            this.add(cardPanel);
-          }
+    @Override
+    public void cardRemoved(int cell) {
+      SwingUtilities.invokeLater(() -> gridPanel.clearCell(cell));
+    }
+
+    @Override
+    public void handCardRemoved(String player, int handIndex) {
+      SwingUtilities.invokeLater(() -> handPanel(player).removeCard(handIndex));
+    }
+
+    @Override
+    public void handCardRestored(String player, int handIndex, Card card) {
+      SwingUtilities.invokeLater(() -> handPanel(player).restoreCard(handIndex, card));
+    }
+
+    @Override
+    public void turnChanged(String player) {
+      SwingUtilities.invokeLater(() -> showCurrentPlayer(player));
+    }
+
+    @Override
+    public void positionReset(PositionSnapshot snapshot) {
+      // draw the position as it was at the reset: turns played since then have their own
+      // events queued after this one
+      SwingUtilities.invokeLater(() -> showPosition(snapshot));
+    }
+  }
+
+  private HandPanel handPanel(String player) {
+    return player.equalsIgnoreCase("Red") ? redHandPanel : blueHandPanel;
+  }
+
+  /**
+   * Returns the background of a card owned by the player with the given color.
+   */
+  private static Color ownerColor(String owner) {
+    return owner.equalsIgnoreCase("Red") ? Color.PINK : Color.CYAN;
+  }
+
+  /**
+   * A nested class representing the grid panel in the game view.
+   * Displays the game grid with clickable cells. Every cell has its own holder panel, so a
+   * change to one cell only lays out that cell again.
+   */
+  private class GridPanel extends JPanel implements ThreeTriosGridPanel {
+    private static final long serialVersionUID = 1L;
+    private JPanel[] cells = new JPanel[0];
+    private int cols;
+
+    @Override
+    public void showPosition(PositionSnapshot snapshot) {
+      if (cells.length != snapshot.getRows() * snapshot.getCols() || cols != snapshot.getCols()) {
+        this.removeAll();
+        this.setLayout(new GridLayout(snapshot.getRows(), snapshot.getCols()));
+        cols = snapshot.getCols();
+        cells = new JPanel[snapshot.getRows() * cols];
+        for (int cell = 0; cell < cells.length; cell++) {
+          cells[cell] = new JPanel(new BorderLayout());
+          this.add(cells[cell]);
+        }
+      }
+      for (int cell = 0; cell < cells.length; cell++) {
+        int row = cell / cols;
+        int col = cell % cols;
+        if (!snapshot.isCardCell(row, col)) {
+          setContent(cell, createHolePanel());
+        } else if (snapshot.isEmpty(row, col)) {
+          setContent(cell, createCellButton(cell));
+        } else {
+          JPanel cardPanel = createCardPanel(snapshot.getCardAt(row, col));
+          cardPanel.setBackground(ownerColor(
+                  snapshot.getOwnerAt(row, col) == PositionSnapshot.RED ? "Red" : "Blue"));
+          setContent(cell, cardPanel);
         }
       }
       this.revalidate();
       this.repaint();
     }
+
+    @Override
+    public void placeCard(int cell, Card card, String owner) {
+      JPanel cardPanel = createCardPanel(card);
+      cardPanel.setBackground(ownerColor(owner));
+      setContent(cell, cardPanel);
+      cells[cell].revalidate();
+      cells[cell].repaint();
+    }
+
+    @Override
+    public void flipCards(int[] flipped, String newOwner) {
+      for (int cell : flipped) {
+        cells[cell].getComponent(0).setBackground(ownerColor(newOwner));
+      }
+    }
+
+    @Override
+    public void clearCell(int cell) {
+      setContent(cell, createCellButton(cell));
+      cells[cell].revalidate();
+      cells[cell].repaint();
+    }
+
+    private void setContent(int cell, JComponent content) {
+      cells[cell].removeAll();
+      cells[cell].add(content, BorderLayout.CENTER);
+    }
+
+    private JButton createCellButton(int cell) {
+      JButton cellButton = new JButton();
+      cellButton.setBackground(Color.LIGHT_GRAY);
+      cellButton.setPreferredSize(new Dimension(80, 80));
+      final int currentRow = cell / cols;
+      final int currentCol = cell % cols;
+
+      cellButton.addMouseListener(new MouseAdapter() {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+          System.out.println("Grid cell clicked at: (" + currentRow + ", " + currentCol + ")");
+        }
+      });
+      return cellButton;
+    }
+
+    private JPanel createHolePanel() {
+      JPanel hole = new JPanel();
+      hole.setBackground(Color.DARK_GRAY);
+      hole.setPreferredSize(new Dimension(80, 80));
+      return hole;
+    }
   }
 
   /**
@@ -123,17 +264,17 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
    * Displays cards vertically and allows selection of individual cards.
    */
   private class HandPanel extends JPanel implements ThreeTriosHandPanel {
+    private static final long serialVersionUID = 1L;
     private final String playerColor;
 
     /**
-     * Constructs a new HandPanel for a player.
+     * Constructs a new, empty HandPanel for a player.
      *
      * @param playerColor the color of the player (e.g., "Red" or "Blue")
-     * @param hand the list of cards in the player's hand
      */
-    public HandPanel(String playerColor, List<Card> hand) {
+    public HandPanel(String playerColor) {
       this.playerColor = playerColor;
-      this.setLayout(new GridLayout(hand.size(), 1)); // Adjust layout to match the number of cards
+      this.setLayout(new GridLayout(0, 1)); // one row per card, however many there are
       this.setPreferredSize(new Dimension(100, 800));
 
       if (playerColor.equals("Red")) {
@@ -142,50 +283,68 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
         this.setBackground(Color.BLUE);
       }
       this.setOpaque(true);
-      populateHand(hand);
     }
 
     /**
-     * Populates the hand panel with card panels representing each card in the player's hand.
+     * Replaces the hand panel's cards with panels for each card in the given hand.
      *
      * @param hand the list of cards in the player's hand
      */
-    private void populateHand(List<Card> hand) {
+    public void showHand(List<Card> hand) {
       this.removeAll();
-      for (int i = 0; i < hand.size(); i++) {
-        Card card = hand.get(i);
-        JPanel cardPanel = createCardPanel(card);
-        cardPanel.setPreferredSize(new Dimension(80, 80));
-
-        if (playerColor.equals("Red")) {
-          cardPanel.setBackground(Color.PINK);
-        } else if (playerColor.equals("Blue")) {
-          cardPanel.setBackground(Color.CYAN);
-        }
-
-        int cardIndex = i;
-        cardPanel.addMouseListener(new MouseAdapter() {
-          @Override
-          public void mouseClicked(MouseEvent e) {
-            System.out.println(playerColor + " card clicked at index: " + cardIndex);
-            highlightCard(cardPanel);
-          }
-        });
-
-        this.add(cardPanel);
+      for (Card card : hand) {
+        this.add(createHandCardPanel(card));
       }
+      this.revalidate();
+      this.repaint();
+    }
 
+    /**
+     * Removes the panel of the card at the given position in the hand.
+     *
+     * @param handIndex the position of the card
+     */
+    public void removeCard(int handIndex) {
+      if (this.getComponent(handIndex) == selectedCardButton) {
+        selectedCardButton = null;
+      }
+      this.remove(handIndex);
       this.revalidate();
       this.repaint();
     }
 
     /**
-     * Updates the hand panel with the current list of cards.
+     * Adds a panel for a card at the given position in the hand.
      *
-     * @param hand the updated list of cards in the player's hand
+     * @param handIndex the position of the card
+     * @param card      the card
      */
-    public void updateHand(List<Card> hand) {
-      populateHand(hand);
+    public void restoreCard(int handIndex, Card card) {
+      this.add(createHandCardPanel(card), handIndex);
+      this.revalidate();
+      this.repaint();
+    }
+
+    private JPanel createHandCardPanel(Card card) {
+      JPanel cardPanel = createCardPanel(card);
+      cardPanel.setPreferredSize(new Dimension(80, 80));
+
+      if (playerColor.equals("Red")) {
+        cardPanel.setBackground(Color.PINK);
+      } else if (playerColor.equals("Blue")) {
+        cardPanel.setBackground(Color.CYAN);
+      }
+
+      cardPanel.addMouseListener(new MouseAdapter() {
+        @Override
+        public void mouseClicked(MouseEvent e) {
+          // cards move up as others are played, so look the position up on each click
+          int cardIndex = getComponentZOrder(cardPanel);
+          System.out.println(playerColor + " card clicked at index: " + cardIndex);
+          highlightCard(cardPanel);
+        }
+      });
+      return cardPanel;
     }
   }
 
@@ -203,32 +362,35 @@ public class ThreeTriosView extends JFrame implements ThreeTriosFrame {
   }
 
   /**
-   * Creates a JPanel representing a card with labels for each attack direction.
+   * Creates a JPanel representing a card, which paints the card's image from the image cache at
+   * whatever size and background the panel has.
    *
    * @param card the card to be displayed
-   * @return a JPanel containing the card's attack values
+   * @return a JPanel showing the card's attack values
    */
   private JPanel createCardPanel(Card card) {
-    JPanel panel = new JPanel(new BorderLayout());
+    JPanel panel = new CardPanel(CardRegistry.idOf(card));
     panel.setBackground(Color.WHITE);
-    panel.setBorder(BorderFactory.createLineBorder(Color.BLACK, 1));
-
-    JLabel northLabel = new JLabel(String.valueOf(card.getAttackValue(Direction.NORTH)), SwingConstants.CENTER);
-    northLabel.setFont(new Font("Arial", Font.BOLD, 14));
-    panel.add(northLabel, BorderLayout.NORTH);
-
-    JLabel westLabel = new JLabel(String.valueOf(card.getAttackValue(Direction.WEST)), SwingConstants.LEFT);
-    westLabel.setFont(new Font("Arial", Font.BOLD, 14));
-    panel.add(westLabel, BorderLayout.WEST);
+    return panel;
+  }
 
-    JLabel eastLabel = new JLabel(String.valueOf(card.getAttackValue(Direction.EAST)), SwingConstants.RIGHT);
-    eastLabel.setFont(new Font("Arial", Font.BOLD, 14));
-    panel.add(eastLabel, BorderLayout.EAST);
+  /**
+   * A panel that shows one card by copying its cached image.
+   */
+  private class CardPanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private final int cardId;
 
-    JLabel southLabel = new JLabel(String.valueOf(card.getAttackValue(Direction.SOUTH)), SwingConstants.CENTER);
-    southLabel.setFont(new Font("Arial", Font.BOLD, 14));
-    panel.add(southLabel, BorderLayout.SOUTH);
+    CardPanel(int cardId) {
+      this.cardId = cardId;
+    }
 
-    return panel;
+    @Override
+    protected void paintComponent(Graphics g) {
+      if (getWidth() > 0 && getHeight() > 0) {
+        g.drawImage(cardImages.getImage(cardId, getBackground(), getWidth(), getHeight()),
+                0, 0, null);
+      }
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,307 @@
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Plays round-robin self-play tournaments between strategies without any user interface.
+ * Every pair of entrants plays a number of games on the same grid, alternating who plays red,
+ * with each game dealt from the deck shuffled by a seed derived from the tournament seed, so a
+ * tournament can be replayed exactly. Games run in parallel on a ForkJoinPool, and the runner
+ * reports wins, losses, draws and average margin per entrant along with games per second.
+ * The runner only uses the model and strategies, never AWT or Swing, so it can run headless.
+ * Every strategy call goes through an {@link InstrumentedStrategy}, so a flight recording or
+ * the default {@link Metrics} show where the time of a tournament went.
+ */
+public class TournamentRunner {
+  private final Grid gridTemplate;
+  private final List<Card> deck;
+  private final int handSize;
+  private final List<Entrant> entrants;
+  private long elapsedNanos;
+  private long gamesPlayed;
+
+  /**
+   * Constructs a runner for the given grid and deck files.
+   *
+   * @param gridFilePath path to the grid configuration file
+   * @param cardFilePath path to the card configuration file
+   * @param entrants     the strategies taking part
+   * @throws FileNotFoundException    if either file is not found
+   * @throws IllegalArgumentException if there are fewer than two entrants, or the deck does not
+   *                                  have enough cards to fill the grid
+   */
+  public TournamentRunner(String gridFilePath, String cardFilePath, List<Entrant> entrants)
+          throws FileNotFoundException {
+    if (entrants.size() < 2) {
+      throw new IllegalArgumentException("A tournament needs at least two entrants.");
+    }
+    this.gridTemplate = FileReader.loadGrid(gridFilePath);
+    this.deck = FileReader.loadCards(cardFilePath);
+    this.handSize = (gridTemplate.getEmptyCardCellCount() + 1) / 2;
+    if (deck.size() < 2 * handSize) {
+      throw new IllegalArgumentException("Deck needs at least " + 2 * handSize + " cards.");
+    }
+    this.entrants = new ArrayList<>(entrants);
+  }
+
+  /**
+   * Plays the tournament and writes a results table to the given output.
+   *
+   * @param gamesPerPairing the number of games each pair of entrants plays
+   * @param seed            the seed the deals are derived from
+   * @param threads         the number of games to play at once
+   * @param out             where to write the results
+   * @throws IOException if the results cannot be written
+   */
+  public void run(int gamesPerPairing, long seed, int threads, Appendable out) throws IOException {
+    for (Entrant entrant : entrants) {
+      entrant.reset();
+    }
+    List<int[]> pairings = new ArrayList<>();
+    for (int i = 0; i < entrants.size(); i++) {
+      for (int j = i + 1; j < entrants.size(); j++) {
+        for (int g = 0; g < gamesPerPairing; g++) {
+          pairings.add(g % 2 == 0 ? new int[]{i, j} : new int[]{j, i});
+        }
+      }
+    }
+
+    long start = System.nanoTime();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      List<ForkJoinTask<?>> games = new ArrayList<>();
+      for (int g = 0; g < pairings.size(); g++) {
+        int[] pairing = pairings.get(g);
+        long gameSeed = seed + g;
+        games.add(pool.submit(() -> playGame(entrants.get(pairing[0]),
+                entrants.get(pairing[1]), gameSeed)));
+      }
+      for (ForkJoinTask<?> game : games) {
+        game.join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    elapsedNanos = System.nanoTime() - start;
+    gamesPlayed = pairings.size();
+
+    out.append(String.format("%-20s %6s %6s %6s %8s%n", "Strategy", "Won", "Lost", "Drawn",
+            "Margin"));
+    for (Entrant entrant : entrants) {
+      out.append(String.format("%-20s %6d %6d %6d %8.2f%n", entrant.getName(),
+              entrant.getWins(), entrant.getLosses(), entrant.getDraws(),
+              entrant.getAverageMargin()));
+    }
+    out.append(String.format("%d games in %.2f s, %.1f games/s%n", gamesPlayed,
+            elapsedNanos / 1e9, getGamesPerSecond()));
+  }
+
+  /**
+   * Returns how fast the last tournament was played.
+   *
+   * @return games per second over the last run
+   */
+  public double getGamesPerSecond() {
+    return elapsedNanos == 0 ? 0 : gamesPlayed * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Plays one game between two entrants and records the result for both.
+   */
+  private void playGame(Entrant red, Entrant blue, long seed) {
+    List<Card> shuffled = new ArrayList<>(deck);
+    Collections.shuffle(shuffled, new Random(seed));
+    Player redPlayer = new Player("Red");
+    Player bluePlayer = new Player("Blue");
+    redPlayer.setHand(shuffled.subList(0, handSize));
+    bluePlayer.setHand(shuffled.subList(handSize, 2 * handSize));
+
+    Game game = new Game(gridTemplate.copy(UnaryOperator.identity()), redPlayer, bluePlayer);
+    // seeded strategies get their own seeds from the game's, apart from the deal
+    SplittableRandom seeds = new SplittableRandom(seed);
+    ThreeTriosStrategy redStrategy = new InstrumentedStrategy(red.getName(),
+            red.strategyFor(seeds.nextLong()));
+    ThreeTriosStrategy blueStrategy = new InstrumentedStrategy(blue.getName(),
+            blue.strategyFor(seeds.nextLong()));
+    while (!game.isGameOver()) {
+      if (game.getCurrentPlayer() == redPlayer) {
+        redStrategy.playMove("Red", game);
+      } else {
+        blueStrategy.playMove("Blue", game);
+      }
+    }
+    int margin = game.getMargin();
+    red.record(margin);
+    blue.record(-margin);
+  }
+
+  /**
+   * Creates the strategy described by a command-line name: "alphabeta:depth",
+   * "deadline:milliseconds" for iterative deepening with a time budget per move,
+   * "mcts:playouts" for random playouts or "mcts-greedy:playouts" for flip-greedy playouts.
+   *
+   * @param spec the strategy description
+   * @return an entrant that plays with that strategy: searches are reused game after game on
+   *         each worker thread, and MCTS strategies are created for each game with a seed
+   *         derived from the game's
+   * @throws IllegalArgumentException if the description is not recognized
+   */
+  public static Entrant parseEntrant(String spec) {
+    String[] parts = spec.split(":");
+    if (parts.length != 2) {
+      throw new IllegalArgumentException("Invalid strategy: " + spec);
+    }
+    long value = Long.parseLong(parts[1]);
+    switch (parts[0]) {
+      case "alphabeta":
+        return new Entrant(spec, () -> new AlphaBetaStrategy((int) value, 1 << 16));
+      case "deadline":
+        return new Entrant(spec, () -> new DeadlineStrategy(Duration.ofMillis(value), 1 << 16));
+      case "mcts":
+        return new Entrant(spec, (long seed) -> new MctsStrategy(value,
+                MctsStrategy.Playout.RANDOM, null, seed));
+      case "mcts-greedy":
+        return new Entrant(spec, (long seed) -> new MctsStrategy(value,
+                MctsStrategy.Playout.GREEDY, null, seed));
+      default:
+        throw new IllegalArgumentException("Invalid strategy: " + spec);
+    }
+  }
+
+  /**
+   * Runs a tournament from the command line.
+   * Usage: TournamentRunner grid-file card-file games-per-pairing seed strategy strategy...
+   *
+   * @param args the command-line arguments
+   * @throws IOException if a configuration file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    if (args.length < 6) {
+      System.err.println("Usage: TournamentRunner grid-file card-file games-per-pairing seed "
+              + "strategy strategy...");
+      System.exit(1);
+    }
+    List<Entrant> entrants = new ArrayList<>();
+    for (int i = 4; i < args.length; i++) {
+      entrants.add(parseEntrant(args[i]));
+    }
+    TournamentRunner runner = new TournamentRunner(args[0], args[1], entrants);
+    runner.run(Integer.parseInt(args[2]), Long.parseLong(args[3]),
+            Runtime.getRuntime().availableProcessors(), System.out);
+    if (Metrics.getDefault().isEnabled()) {
+      Metrics.getDefault().dump(System.out);
+    }
+  }
+
+  /**
+   * A named strategy taking part in a tournament, with its running results.
+   * Strategies keep search state, so two games never share one. An unseeded strategy is made
+   * once per worker thread and reused for every game that thread plays, which saves allocating
+   * its tables for each game; it must not carry anything from one game into the next, as the
+   * searches here do not, since every search starts a new table generation. A seeded strategy
+   * is made for every game from a seed derived from the game's, so its games do not all replay
+   * the same random choices and a tournament can still be replayed exactly.
+   */
+  public static class Entrant {
+    private final String name;
+    private final LongFunction<ThreeTriosStrategy> factory;
+    private final boolean seeded;
+    private final ThreadLocal<ThreeTriosStrategy> reused = new ThreadLocal<>();
+    private int wins;
+    private int losses;
+    private int draws;
+    private long totalMargin;
+
+    /**
+     * Constructs an entrant whose strategy is reused from game to game on each worker thread.
+     *
+     * @param name    the name to show in the results
+     * @param factory creates the entrant's strategy for a worker thread
+     */
+    public Entrant(String name, Supplier<ThreeTriosStrategy> factory) {
+      this.name = name;
+      this.factory = seed -> factory.get();
+      this.seeded = false;
+    }
+
+    /**
+     * Constructs an entrant whose strategy is created for each game from a seed.
+     *
+     * @param name    the name to show in the results
+     * @param factory creates the entrant's strategy for a game from a seed derived from the
+     *                game's seed
+     */
+    public Entrant(String name, LongFunction<ThreeTriosStrategy> factory) {
+      this.name = name;
+      this.factory = factory;
+      this.seeded = true;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public synchronized int getWins() {
+      return wins;
+    }
+
+    public synchronized int getLosses() {
+      return losses;
+    }
+
+    public synchronized int getDraws() {
+      return draws;
+    }
+
+    /**
+     * Returns the entrant's average final margin over its games.
+     *
+     * @return the average of the entrant's score minus the opponent's score
+     */
+    public synchronized double getAverageMargin() {
+      int games = wins + losses + draws;
+      return games == 0 ? 0 : (double) totalMargin / games;
+    }
+
+    private ThreeTriosStrategy strategyFor(long seed) {
+      if (seeded) {
+        return factory.apply(seed);
+      }
+      ThreeTriosStrategy strategy = reused.get();
+      if (strategy == null) {
+        strategy = factory.apply(seed);
+        reused.set(strategy);
+      }
+      return strategy;
+    }
+
+    private synchronized void record(int margin) {
+      if (margin > 0) {
+        wins++;
+      } else if (margin < 0) {
+        losses++;
+      } else {
+        draws++;
+      }
+      totalMargin += margin;
+    }
+
+    private synchronized void reset() {
+      wins = 0;
+      losses = 0;
+      draws = 0;
+      totalMargin = 0;
+    }
+  }
+}
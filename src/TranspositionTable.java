@@ -0,0 +1,140 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size transposition table for game tree search, stored in parallel primitive arrays.
+ * Each position key maps to one slot; a new result replaces the one in its slot when the slot
+ * holds a result from an earlier search or a result searched to no greater depth.
+ * Results from earlier searches are never returned by {@link #probe(long)}, so a search only
+ * sees values it computed itself and gives the same answer however the table was used before.
+ */
+public class TranspositionTable {
+  /**
+   * The stored score is the exact value of the position.
+   */
+  public static final int EXACT = 0;
+
+  /**
+   * The stored score is a lower bound: the search failed high.
+   */
+  public static final int LOWER = 1;
+
+  /**
+   * The stored score is an upper bound: the search failed low.
+   */
+  public static final int UPPER = 2;
+
+  private final long[] keys;
+  private final int[] scores;
+  private final int[] moves;
+  private final int[] info;
+  private final int mask;
+  private int generation;
+
+  /**
+   * Constructs a table with room for at least the given number of entries.
+   *
+   * @param entries the minimum number of entries, rounded up to a power of two
+   * @throws IllegalArgumentException if entries is not positive
+   */
+  public TranspositionTable(int entries) {
+    if (entries <= 0) {
+      throw new IllegalArgumentException("Table size must be positive.");
+    }
+    int size = Integer.highestOneBit(entries);
+    if (size < entries) {
+      size <<= 1;
+    }
+    this.keys = new long[size];
+    this.scores = new int[size];
+    this.moves = new int[size];
+    this.info = new int[size];
+    this.mask = size - 1;
+    this.generation = 1;
+  }
+
+  /**
+   * Starts a new search. Entries stored before this call are treated as empty.
+   */
+  public void newSearch() {
+    generation = (generation + 1) & 0xFFFF;
+    if (generation == 0) {
+      Arrays.fill(info, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * Looks a position up in the table.
+   *
+   * @param key the position key
+   * @return the slot holding the position's entry, or -1 if the table has no entry for it
+   */
+  public int probe(long key) {
+    int slot = (int) key & mask;
+    if (keys[slot] == key && (info[slot] >>> 16) == generation) {
+      return slot;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the score stored in a slot found by {@link #probe(long)}.
+   *
+   * @param slot the slot
+   * @return the stored score
+   */
+  public int getScore(int slot) {
+    return scores[slot];
+  }
+
+  /**
+   * Returns the remaining search depth of the result stored in a slot.
+   *
+   * @param slot the slot
+   * @return the stored depth
+   */
+  public int getDepth(int slot) {
+    return (info[slot] >>> 2) & 0x3FFF;
+  }
+
+  /**
+   * Returns whether the score in a slot is {@link #EXACT}, a {@link #LOWER} or an
+   * {@link #UPPER} bound.
+   *
+   * @param slot the slot
+   * @return the bound type of the stored score
+   */
+  public int getFlag(int slot) {
+    return info[slot] & 3;
+  }
+
+  /**
+   * Returns the best move stored in a slot.
+   *
+   * @param slot the slot
+   * @return the stored move, or -1 if none was stored
+   */
+  public int getMove(int slot) {
+    return moves[slot];
+  }
+
+  /**
+   * Stores a search result, unless the slot already holds a deeper result from this search.
+   *
+   * @param key   the position key
+   * @param depth the remaining depth the position was searched to
+   * @param flag  {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+   * @param score the score of the position
+   * @param move  the best move found, or -1
+   */
+  public void store(long key, int depth, int flag, int score, int move) {
+    int slot = (int) key & mask;
+    if ((info[slot] >>> 16) == generation && keys[slot] != key && getDepth(slot) > depth) {
+      return;
+    }
+    keys[slot] = key;
+    scores[slot] = score;
+    moves[slot] = move;
+    info[slot] = generation << 16 | Math.min(depth, 0x3FFF) << 2 | flag;
+  }
+}
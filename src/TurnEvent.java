@@ -0,0 +1,33 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Java Flight Recorder event for a turn played with {@link Game#playTurn(int, int, Card)}.
+ * The duration of the event is the time the turn took, battle phase included. The event is
+ * disabled unless a recording enables it, for example with
+ * -XX:StartFlightRecording:settings=profile.
+ */
+@Name("threetrios.Turn")
+@Label("Turn")
+@Category("Three Trios")
+@Description("A card played on the grid")
+final class TurnEvent extends Event {
+  @Label("Player")
+  String player;
+
+  @Label("Row")
+  int row;
+
+  @Label("Column")
+  int col;
+
+  @Label("Card")
+  String card;
+
+  @Label("Flips")
+  @Description("Number of opponent cards flipped")
+  int flips;
+}
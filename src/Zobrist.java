@@ -0,0 +1,87 @@
+/**
+ * Zobrist-style hash keys for Three Trios positions.
+ * The key of a position is the XOR of one value per occupied cell, chosen by the cell index, the
+ * CardRegistry id of its card and its owner, plus {@link #SIDE} when blue is to move. Because
+ * XOR is its own inverse, a key can be updated move by move instead of being recomputed.
+ * The values come from a fixed mixing function rather than a random table, so keys are the same
+ * in every run and work for grids and decks of any size.
+ */
+public final class Zobrist {
+  /**
+   * Owner value for cells owned by the red player.
+   */
+  public static final int RED = 0;
+
+  /**
+   * Owner value for cells owned by the blue player.
+   */
+  public static final int BLUE = 1;
+
+  /**
+   * Value XORed into the key when the blue player is to move.
+   */
+  public static final long SIDE = mix(0x5DEECE66DL);
+
+  private Zobrist() {
+  }
+
+  /**
+   * Returns the key value of a card with the given id and owner in the given cell.
+   *
+   * @param cell   the flat index of the cell
+   * @param cardId the registry id of the card
+   * @param owner  {@link #RED} or {@link #BLUE}
+   * @return the key value for that cell state
+   */
+  public static long key(int cell, int cardId, int owner) {
+    return mix(((long) cell << 32) ^ ((long) cardId << 1) ^ owner);
+  }
+
+  /**
+   * Returns the value to XOR into a key when the card in a cell changes owner.
+   *
+   * @param cell   the flat index of the cell
+   * @param cardId the registry id of the card
+   * @return the key change for flipping that card
+   */
+  public static long flip(int cell, int cardId) {
+    return key(cell, cardId, RED) ^ key(cell, cardId, BLUE);
+  }
+
+  /**
+   * Returns the key value of a card with the given attack values in the given cell. Unlike
+   * {@link #key(int, int, int)}, this identifies the card by its attack values, for keys of
+   * turned positions whose cards need not be in the deck, see {@link GridSymmetry}.
+   *
+   * @param cell    the flat index of the cell
+   * @param attacks the packed attack values of the card
+   * @param owner   {@link #RED} or {@link #BLUE}
+   * @return the key value for that cell state
+   */
+  public static long cardKey(int cell, int attacks, int owner) {
+    return mix(~(((long) (cell + 1) << 32) ^ ((long) attacks << 1) ^ owner));
+  }
+
+  /**
+   * Returns the key value of a card with the given attack values in a player's hand. A hand can
+   * hold equal cards, so the key of a hand is the sum of the values of its cards rather than
+   * their XOR. Cards with equal attack values get equal values, since they play the same.
+   *
+   * @param attacks the packed attack values of the card
+   * @param owner   {@link #RED} or {@link #BLUE}
+   * @return the key value for that card in that player's hand
+   */
+  public static long handCard(int attacks, int owner) {
+    return mix(~((long) attacks << 1 ^ owner));
+  }
+
+  /**
+   * The SplitMix64 finalizer, which spreads every input bit over the whole result.
+   */
+  private static long mix(long z) {
+    z += 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -230,4 +230,147 @@ public class ImplementationTesting {
       Assert.fail("Grid file not found: " + e.getMessage());
     }
   }
+
+  @Test
+  public void testScoreCountersFollowPlacementsAndFlips() throws FileNotFoundException {
+    Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+    Player redPlayer = new Player("Red");
+    Player bluePlayer = new Player("Blue");
+    redPlayer.addCardToHand(new Card("ExtraRedCard", 3, 5, 6, 4));
+    Game game = new Game(grid, redPlayer, bluePlayer);
+
+    Card card = new Card("RedCard", 8, 4, 5, 6);
+    grid.placeCard(0, 0, card, redPlayer);
+    grid.placeCard(0, 1, card, bluePlayer);
+    grid.placeCard(0, 2, card, bluePlayer);
+    Assert.assertEquals(22, grid.getEmptyCardCellCount());
+    Assert.assertEquals(2, game.getPlayerScore("Red"));
+    Assert.assertEquals(2, game.getPlayerScore("Blue"));
+
+    grid.getCell(0, 1).flip(redPlayer);
+    Assert.assertEquals(3, game.getPlayerScore("Red"));
+    Assert.assertEquals(1, game.getPlayerScore("Blue"));
+    Assert.assertEquals(redPlayer, Game.checkWinner(grid, redPlayer, bluePlayer));
+  }
+
+  @Test
+  public void testMakeAndUnmakeMoveRestoresPosition() throws FileNotFoundException {
+    Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+    Player redPlayer = new Player("Red");
+    Player bluePlayer = new Player("Blue");
+    Card weakCard = new Card("Weak", 1, 1, 1, 1);
+    Card strongCard = new Card("Strong", 9, 9, 9, 9);
+    redPlayer.addCardToHand(new Card("Filler", 2, 2, 2, 2));
+    redPlayer.addCardToHand(strongCard);
+    bluePlayer.addCardToHand(weakCard);
+    Game game = new Game(grid, redPlayer, bluePlayer);
+
+    game.makeMove(0, 0, 0);
+    game.makeMove(0, 4, 0);
+    Assert.assertEquals(1, game.makeMove(0, 3, 0));
+    Assert.assertEquals(redPlayer, grid.getCell(0, 4).getOwner());
+    Assert.assertEquals(0, redPlayer.getHandSize());
+
+    game.unmakeMove();
+    Assert.assertEquals(bluePlayer, grid.getCell(0, 4).getOwner());
+    Assert.assertTrue(grid.isValidMove(0, 3));
+    Assert.assertEquals(strongCard, redPlayer.getCardAt(0));
+    Assert.assertEquals(23, grid.getEmptyCardCellCount());
+
+    game.unmakeMove();
+    game.unmakeMove();
+    Assert.assertEquals(25, grid.getEmptyCardCellCount());
+    Assert.assertEquals(2, redPlayer.getHandSize());
+    Assert.assertEquals(weakCard, bluePlayer.getCardAt(0));
+  }
+
+  @Test
+  public void testConfigCacheReusesParsedFiles() throws FileNotFoundException {
+    ConfigCache cache = new ConfigCache(2);
+    Grid first = cache.getGrid("src/files/grid_no_holes.txt");
+    Grid second = cache.getGrid("src/files/grid_no_holes.txt");
+    first.placeCard(0, 0, new Card("Phoenix", 4, 9, 6, 2), new Player("Red"));
+
+    Assert.assertNotSame(first, second);
+    Assert.assertTrue(second.getCell(0, 0).isEmpty());
+    Assert.assertSame(first.getSymmetry(), second.getSymmetry());
+    Assert.assertEquals(24, first.getEmptyCardCellCount());
+    Assert.assertEquals(25, second.getEmptyCardCellCount());
+
+    // a copy of a played grid keeps its cards and counts, and changes on its own
+    Player blue = new Player("Blue");
+    Grid copy = first.copy(owner -> blue);
+    Assert.assertEquals(1, copy.getOwnedCount(blue));
+    Assert.assertEquals(1, copy.getNeighbor(0, Direction.EAST.ordinal()));
+    copy.removeCard(0, 0);
+    Assert.assertEquals(25, copy.getEmptyCardCellCount());
+    Assert.assertFalse(first.getCell(0, 0).isEmpty());
+    Assert.assertSame(cache.getCards("src/files/cards.txt"),
+            cache.getCards("src/files/cards.txt"));
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(2, cache.getHits());
+
+    // a third file evicts the grid, the least recently used entry
+    cache.getCards("src/files/few_cards.txt");
+    cache.getGrid("src/files/grid_no_holes.txt");
+    Assert.assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testSetupGameDealsBothHalvesOfTheDeck() throws FileNotFoundException {
+    Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"),
+            new Player("Red"), new Player("Blue"));
+    game.setupGame("src/files/grid_holes_reach.txt", "src/files/cards.txt");
+
+    Assert.assertEquals(15, game.getRedPlayerHand().size());
+    Assert.assertEquals(16, game.getBluePlayerHand().size());
+    Assert.assertFalse(game.isGameOver());
+  }
+
+  @Test
+  public void testCardImageCacheDrawsEachCardOnce() {
+    CardImageCache cache = new CardImageCache(2);
+    int phoenix = CardRegistry.idOf(new Card("Phoenix", 4, 9, 6, 2));
+    int dragon = CardRegistry.idOf(new Card("Dragon", 7, 3, 5, 8));
+
+    java.awt.image.BufferedImage image =
+            cache.getImage(phoenix, java.awt.Color.PINK, 80, 80);
+    Assert.assertSame(image, cache.getImage(phoenix, java.awt.Color.PINK, 80, 80));
+    Assert.assertEquals(80, image.getWidth());
+    Assert.assertEquals(java.awt.Color.PINK.getRGB(), image.getRGB(40, 40));
+    Assert.assertNotSame(image, cache.getImage(phoenix, java.awt.Color.CYAN, 80, 80));
+    Assert.assertEquals(2, cache.getMisses());
+    Assert.assertEquals(1, cache.getHits());
+
+    // a third image evicts the least recently used one
+    cache.getImage(dragon, java.awt.Color.PINK, 80, 80);
+    Assert.assertEquals(2, cache.size());
+    cache.getImage(phoenix, java.awt.Color.PINK, 80, 80);
+    Assert.assertEquals(4, cache.getMisses());
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testTextViewDiffModeRewritesOnlyChangedCells() throws FileNotFoundException {
+    Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+    Player redPlayer = new Player("Red");
+    Player bluePlayer = new Player("Blue");
+    StringBuilder output = new StringBuilder();
+    TextView textView = new TextView(output, true);
+
+    textView.render(grid, redPlayer);
+    Assert.assertTrue(output.toString().startsWith("\u001b[2J\u001b[HPlayer: RED"));
+
+    output.setLength(0);
+    grid.placeCard(2, 2, new Card("Phoenix", 4, 9, 6, 2), redPlayer);
+    textView.render(grid, redPlayer);
+    // only the new card at row 2, column 2 is written, then the cursor goes below the hand
+    Assert.assertEquals("\u001b[4;8HR\u001b[8;1H", output.toString());
+
+    output.setLength(0);
+    textView.render(grid, bluePlayer);
+    Assert.assertEquals("\u001b[1;1HPlayer: BLUE\u001b[K\u001b[8;1H", output.toString());
+  }
 }
@@ -1,4 +1,5 @@
 import org.junit.jupiter.api.Test;
+import java.util.Arrays;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -440,4 +441,519 @@ public class ModelTest {
       fail("Failed full grid placement test: " + e.getMessage());
     }
   }
+
+  @Test
+  public void testBitGridMatchesGrid() {
+    try {
+      Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+      BitGrid bitGrid = FileReader.loadBitGrid("src/files/grid_holes_reach.txt");
+      Player redPlayer = new Player("Red");
+      Player bluePlayer = new Player("Blue");
+      Card card = new Card("Phoenix", 4, 9, 6, 2);
+      // an equal card shares the registry id, but cells still hand back the card placed
+      Card twin = new Card("Phoenix", 4, 9, 6, 2);
+
+      grid.placeCard(2, 2, card, redPlayer);
+      bitGrid.placeCard(2, 2, card, redPlayer);
+      grid.placeCard(2, 3, twin, bluePlayer);
+      bitGrid.placeCard(2, 3, twin, bluePlayer);
+      assertSame(card, bitGrid.getCell(2, 2).getCard());
+      assertSame(twin, bitGrid.getCell(2, 3).getCard());
+      assertSame(twin, bitGrid.copy(owner -> owner).getCell(2, 3).getCard());
+
+      for (int i = 0; i < grid.getRows(); i++) {
+        for (int j = 0; j < grid.getCols(); j++) {
+          assertEquals(grid.getCell(i, j).isCardCell(), bitGrid.getCell(i, j).isCardCell());
+          assertEquals(grid.isValidMove(i, j), bitGrid.isValidMove(i, j));
+          assertEquals(grid.getCell(i, j).getCard(), bitGrid.getCell(i, j).getCard());
+          assertEquals(grid.getCell(i, j).getOwner(), bitGrid.getCell(i, j).getOwner());
+        }
+      }
+      assertEquals(grid.getEmptyCardCellCount(), bitGrid.getEmptyCardCellCount());
+      assertEquals(1, bitGrid.getOwnedCount(bluePlayer));
+    } catch (Exception e) {
+      fail("Failed to compare BitGrid with Grid: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBitGridFlipThroughCell() {
+    try {
+      BitGrid grid = FileReader.loadBitGrid("src/files/grid_no_holes.txt");
+      Player redPlayer = new Player("Red");
+      Player bluePlayer = new Player("Blue");
+
+      grid.placeCard(2, 2, new Card("Dragon", 7, 5, 3, 8), redPlayer);
+      grid.placeCard(2, 3, new Card("Phoenix", 4, 9, 6, 2), bluePlayer);
+      grid.getCell(2, 3).flip(redPlayer);
+
+      assertEquals(redPlayer, grid.getCell(2, 3).getOwner());
+      assertEquals(2, grid.getOwnedCount(redPlayer));
+      assertEquals(0, grid.getOwnedCount(bluePlayer));
+      assertEquals(23, grid.getEmptyCardCellCount());
+      assertThrows(IllegalArgumentException.class, () -> grid.isValidMove(5, 5));
+    } catch (Exception e) {
+      fail("Failed BitGrid flip test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCardRegistryInternsLoadedCards() {
+    try {
+      List<Card> first = FileReader.loadCards("src/files/few_cards.txt");
+      List<Card> second = FileReader.loadCards("src/files/cards.txt");
+
+      assertSame(first.get(0), second.get(0));
+      int id = first.get(3).getId();
+      assertSame(first.get(3), CardRegistry.getCard(id));
+      assertEquals(10, Card.attack(CardRegistry.getAttacks(id), Direction.NORTH.ordinal()));
+      assertEquals(5, Card.attack(CardRegistry.getAttacks(id), Direction.WEST.ordinal()));
+      assertEquals(Direction.SOUTH, Direction.NORTH.opposite());
+      assertThrows(IllegalArgumentException.class, () -> new Card("Broken", 0, 1, 1, 1));
+    } catch (Exception e) {
+      fail("Failed card registry test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testNeighborTableSkipsEdgesAndHoles() {
+    try {
+      IntGrid[] grids = {FileReader.loadGrid("src/files/grid_holes_reach.txt"),
+          FileReader.loadBitGrid("src/files/grid_holes_reach.txt")};
+      for (IntGrid grid : grids) {
+        // (0, 0): no north or west neighbor, card cells to the south and east
+        assertEquals(-1, grid.getNeighbor(0, Direction.NORTH.ordinal()));
+        assertEquals(-1, grid.getNeighbor(0, Direction.WEST.ordinal()));
+        assertEquals(5, grid.getNeighbor(0, Direction.SOUTH.ordinal()));
+        assertEquals(1, grid.getNeighbor(0, Direction.EAST.ordinal()));
+        // (0, 1): the cell to the east and the cell to the south are holes
+        assertEquals(-1, grid.getNeighbor(1, Direction.EAST.ordinal()));
+        assertEquals(-1, grid.getNeighbor(1, Direction.SOUTH.ordinal()));
+        // (0, 2) is a hole and has no neighbors
+        assertEquals(-1, grid.getNeighbor(2, Direction.WEST.ordinal()));
+      }
+    } catch (Exception e) {
+      fail("Failed neighbor table test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSymmetricPositionsShareCanonicalKey() {
+    try {
+      IntGrid[] grids = {FileReader.loadGrid("src/files/grid_holes_reach.txt"),
+          FileReader.loadBitGrid("src/files/grid_holes_reach.txt")};
+      for (IntGrid grid : grids) {
+        assertEquals(2, grid.getSymmetry().size());
+        assertEquals("mirror rows", grid.getSymmetry().getName(1));
+      }
+
+      Grid square = FileReader.loadGrid("src/files/grid_no_holes.txt");
+      GridSymmetry symmetry = square.getSymmetry();
+      assertEquals(8, symmetry.size());
+      // every symmetry sends neighbors to neighbors in the turned direction
+      for (int s = 0; s < symmetry.size(); s++) {
+        for (int cell = 0; cell < 25; cell++) {
+          for (int dir = 0; dir < 4; dir++) {
+            int adj = square.getNeighbor(cell, dir);
+            if (adj >= 0) {
+              assertEquals(symmetry.mapCell(s, adj), square.getNeighbor(
+                  symmetry.mapCell(s, cell), symmetry.mapDirection(s, dir)));
+            }
+          }
+        }
+      }
+      assertEquals("rotate 90", symmetry.getName(1));
+      assertEquals(Card.pack(4, 3, 1, 2), symmetry.mapAttacks(1, Card.pack(1, 2, 3, 4)));
+
+      // a card in the top left corner, then the same card turned a quarter turn clockwise in
+      // the top right corner, then the card unturned in the top right corner
+      Game left = playOneCard(new Card("Corner", 1, 2, 3, 4), 0, 0);
+      Game turned = playOneCard(new Card("Turned", 4, 3, 1, 2), 0, 4);
+      Game unturned = playOneCard(new Card("Unturned", 1, 2, 3, 4), 0, 4);
+      assertNotEquals(left.getPositionKey(), turned.getPositionKey());
+      assertEquals(left.getCanonicalKey(), turned.getCanonicalKey());
+      assertNotEquals(left.getCanonicalKey(), unturned.getCanonicalKey());
+    } catch (Exception e) {
+      fail("Failed symmetry test: " + e.getMessage());
+    }
+  }
+
+  private static Game playOneCard(Card card, int row, int col) throws Exception {
+    Player red = new Player("Red");
+    Player blue = new Player("Blue");
+    red.addCardToHand(card);
+    red.addCardToHand(new Card("Even", 5, 5, 5, 5));
+    blue.addCardToHand(new Card("Level", 7, 7, 7, 7));
+    Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"), red, blue);
+    game.playTurn(row, col, card);
+    return game;
+  }
+
+  @Test
+  public void testGeneratedMovesAreOrderedByFlips() {
+    try {
+      Player red = new Player("Red");
+      Player blue = new Player("Blue");
+      Card faint = new Card("Faint", 1, 1, 1, 1);
+      Card mighty = new Card("Mighty", 9, 9, 9, 9);
+      red.addCardToHand(faint);
+      red.addCardToHand(mighty);
+      red.addCardToHand(new Card("Even", 5, 5, 5, 5));
+      blue.addCardToHand(faint);
+      blue.addCardToHand(mighty);
+      Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"), red, blue);
+      game.playTurn(2, 2, faint);
+      game.playTurn(0, 0, faint);
+
+      // moves name cards by slot: red's first card left its slot 0
+      int[] moves = new int[game.getMoveCount()];
+      int count = game.generateMoves(moves);
+      assertEquals(46, count);
+      int i = 0;
+      for (int row = 0; row < 5; row++) {
+        for (int col = 0; col < 5; col++) {
+          Cell cell = game.getCellContents(row, col);
+          for (int slot = 1; cell.isEmpty() && slot < 3; slot++) {
+            assertEquals(Game.encodeMove(row * 5 + col, slot), moves[i++]);
+          }
+        }
+      }
+      try {
+        game.generateMoves(new int[count - 1]);
+        fail("Expected exception for a buffer that is too small");
+      } catch (IllegalArgumentException e) {
+        // Expected exception
+      }
+
+      int[] sorted = moves.clone();
+      int first = Game.encodeMove(24, 2);
+      game.orderByFlipGain(moves, count, first);
+      assertEquals(first, moves[0]);
+      // the moves next to blue's corner card flip it, and the rest keep row-major order
+      assertEquals(Game.encodeMove(1, 1), moves[1]);
+      assertEquals(Game.encodeMove(1, 2), moves[2]);
+      assertEquals(Game.encodeMove(5, 1), moves[3]);
+      assertEquals(Game.encodeMove(5, 2), moves[4]);
+      for (int j = 6; j < count; j++) {
+        assertTrue(moves[j - 1] < moves[j]);
+      }
+      Arrays.sort(moves);
+      assertArrayEquals(sorted, moves);
+    } catch (Exception e) {
+      fail("Failed move generation test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testMovesThatDoNotFitAreRejected() {
+    try {
+      Game.encodeMove(0, Game.MAX_MOVE_SLOTS);
+      fail("Expected exception for a slot that does not fit");
+    } catch (IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      Game.encodeMove(Game.MAX_MOVE_CELLS, 0);
+      fail("Expected exception for a cell that does not fit");
+    } catch (IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      Player red = new Player("Red");
+      Player blue = new Player("Blue");
+      Card crowd = new Card("Crowd", 5, 5, 5, 5);
+      for (int i = 0; i <= Game.MAX_MOVE_SLOTS; i++) {
+        red.addCardToHand(crowd);
+      }
+      blue.addCardToHand(new Card("Loner", 5, 5, 5, 5));
+      Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"), red, blue);
+      assertEquals(25 * (Game.MAX_MOVE_SLOTS + 1), game.getMoveCount());
+      try {
+        game.generateMoves(new int[game.getMoveCount()]);
+        fail("Expected exception for a hand too large for encoded moves");
+      } catch (IllegalStateException e) {
+        // Expected exception
+      }
+      // the last slot still plays through its position
+      assertEquals(0, game.makeMove(0, 0, Game.MAX_MOVE_SLOTS));
+      assertEquals(Game.MAX_MOVE_SLOTS, red.getHandSize());
+      assertEquals(-1, game.getLastMove());
+    } catch (Exception e) {
+      fail("Failed large hand test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testEncodedMovesPlayCardsBySlot() {
+    try {
+      Player red = new Player("Red");
+      Player blue = new Player("Blue");
+      Card dusk = new Card("Dusk", 3, 3, 3, 3);
+      Card ember = new Card("Ember", 4, 4, 4, 4);
+      Card frost = new Card("Frost", 6, 6, 6, 6);
+      red.addCardToHand(dusk);
+      red.addCardToHand(ember);
+      red.addCardToHand(frost);
+      blue.addCardToHand(new Card("Gale", 2, 2, 2, 2));
+      blue.addCardToHand(new Card("Haze", 7, 7, 7, 7));
+      Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"), red, blue);
+      game.playTurn(0, 0, dusk);
+      game.makeMove(0, 4, 0);
+      List<Card> hand = game.getRedPlayerHand();
+
+      int move = Game.encodeMove(12, 2);
+      assertEquals(0, game.getMoveFlipCount(move));
+      game.makeMove(move);
+      assertSame(frost, game.getCellContents(2, 2).getCard());
+      assertEquals(move, game.getLastMove());
+      assertEquals(List.of(ember), red.getHand());
+      assertEquals(List.of(ember), hand);
+      try {
+        game.makeMove(Game.encodeMove(13, 0));
+        fail("Expected exception for a slot without a card");
+      } catch (IllegalArgumentException e) {
+        // Expected exception
+      }
+
+      game.unmakeMove();
+      assertEquals(List.of(ember, frost), hand);
+      assertTrue(red.getSlots().isPresent(2));
+      assertEquals(Game.encodeMove(4, 0), game.getLastMove());
+    } catch (Exception e) {
+      fail("Failed slot move test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testHandKeepsSlotsAndShowsLiveView() {
+    Player player = new Player("Red");
+    Card ace = new Card("Ace", 1, 2, 3, 4);
+    Card bolt = new Card("Bolt", 4, 3, 2, 1);
+    Card cinder = new Card("Cinder", 2, 2, 2, 2);
+    player.addCardToHand(ace);
+    player.addCardToHand(bolt);
+    player.addCardToHand(cinder);
+    List<Card> view = player.getHand();
+    Hand hand = player.getSlots();
+
+    assertSame(bolt, player.removeCardAt(1));
+    assertEquals(List.of(ace, cinder), view);
+    assertSame(cinder, player.getCardAt(1));
+    assertEquals(2, hand.slotOf(1));
+    assertEquals(1, hand.indexOf(2));
+    assertFalse(hand.isPresent(1));
+    assertEquals(2, hand.nextSlot(1));
+
+    hand.remove(0);
+    assertEquals(List.of(cinder), view);
+    assertEquals(-1, hand.nextSlot(3));
+    hand.restore(0);
+    player.restoreCard(1, bolt);
+    assertEquals(List.of(ace, bolt, cinder), view);
+    assertEquals(1, player.indexOfCard(bolt));
+    try {
+      hand.restore(1);
+      fail("Expected exception for restoring a full slot");
+    } catch (IllegalArgumentException e) {
+      // Expected exception
+    }
+    try {
+      view.remove(0);
+      fail("Expected exception for changing the view");
+    } catch (UnsupportedOperationException e) {
+      // Expected exception
+    }
+
+    Player copy = player.copy();
+    copy.removeCardAt(0);
+    assertEquals(3, player.getHandSize());
+    assertEquals(List.of(bolt, cinder), copy.getHand());
+  }
+
+  @Test
+  public void testMappedReaderMatchesFileReader() {
+    try {
+      List<Card> cards = FileReader.loadCards("src/files/cards.txt");
+      assertEquals(cards, MappedFileReader.loadCards("src/files/cards.txt"));
+
+      Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+      Grid mapped = MappedFileReader.loadGrid("src/files/grid_holes_reach.txt");
+      assertEquals(grid.getRows(), mapped.getRows());
+      assertEquals(grid.getCols(), mapped.getCols());
+      for (int i = 0; i < grid.getRows(); i++) {
+        for (int j = 0; j < grid.getCols(); j++) {
+          assertEquals(grid.getCell(i, j).isCardCell(), mapped.getCell(i, j).isCardCell());
+        }
+      }
+
+      int[] count = new int[1];
+      MappedFileReader.forEachCard("src/files/few_cards.txt", (name, attacks, line) -> {
+        assertEquals(count[0] + 1, line);
+        count[0]++;
+      });
+      assertEquals(FileReader.loadCards("src/files/few_cards.txt").size(), count[0]);
+    } catch (Exception e) {
+      fail("Failed mapped reader test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBinaryConfigRoundTrip() {
+    try {
+      java.io.File cardFile = java.io.File.createTempFile("cards", ".bin");
+      java.io.File gridFile = java.io.File.createTempFile("grid", ".bin");
+      cardFile.deleteOnExit();
+      gridFile.deleteOnExit();
+      BinaryConfig.convertCards("src/files/cards.txt", cardFile.getPath());
+      BinaryConfig.convertGrid("src/files/grid_holes_reach.txt", gridFile.getPath());
+
+      List<Card> cards = FileReader.loadCards("src/files/cards.txt");
+      BinaryConfig.Deck deck = BinaryConfig.loadDeck(cardFile.getPath());
+      assertEquals(cards.size(), deck.size());
+      assertEquals(cards.get(0).getName(), deck.getName(0));
+      assertEquals(cards.get(0).getPackedAttacks(), deck.getAttacks(0));
+      assertEquals(cards, BinaryConfig.loadCards(cardFile.getPath()));
+
+      Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+      Grid loaded = BinaryConfig.loadGrid(gridFile.getPath());
+      for (int i = 0; i < grid.getRows(); i++) {
+        for (int j = 0; j < grid.getCols(); j++) {
+          assertEquals(grid.getCell(i, j).isCardCell(), loaded.getCell(i, j).isCardCell());
+        }
+      }
+      assertThrows(IllegalArgumentException.class,
+          () -> BinaryConfig.loadGrid(cardFile.getPath()));
+
+      // a name offset past the next one is caught when the deck is opened
+      try (java.io.RandomAccessFile file = new java.io.RandomAccessFile(cardFile, "rw")) {
+        file.seek(12 + 2 * deck.size() + 4);
+        file.writeInt(Integer.MAX_VALUE);
+      }
+      assertThrows(IllegalArgumentException.class,
+          () -> BinaryConfig.loadDeck(cardFile.getPath()));
+    } catch (Exception e) {
+      fail("Failed binary config round trip: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSnapshotIsPublishedAfterEachTurn() {
+    try {
+      Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+      Player red = new Player("Red");
+      Player blue = new Player("Blue");
+      Card weak = new Card("Weak", 1, 1, 1, 1);
+      Card strong = new Card("Strong", 9, 9, 9, 9);
+      red.addCardToHand(weak);
+      red.addCardToHand(strong);
+      blue.addCardToHand(strong);
+      blue.addCardToHand(weak);
+      Game game = new Game(grid, red, blue);
+
+      PositionSnapshot start = game.getSnapshot();
+      assertEquals(0, start.getMoveCount());
+      assertFalse(start.isCardCell(0, 2));
+      assertTrue(start.isEmpty(2, 2));
+
+      game.playTurn(2, 2, weak);
+      game.playTurn(2, 3, strong);
+      PositionSnapshot after = game.getSnapshot();
+      assertEquals(2, after.getMoveCount());
+      assertEquals(PositionSnapshot.RED, after.getPlayerToMove());
+      assertEquals(PositionSnapshot.BLUE, after.getOwnerAt(2, 2));
+      assertEquals(weak, after.getCardAt(2, 2));
+      assertEquals(2, after.getOwnedCount(PositionSnapshot.BLUE));
+      assertEquals(1, after.getHandSize(PositionSnapshot.RED));
+      assertEquals(List.of(weak), after.getHand(PositionSnapshot.BLUE));
+      assertEquals(game.getPositionKey(), after.getPositionKey());
+      assertTrue(start.isEmpty(2, 2));
+
+      game.makeMove(1, 2, 0);
+      assertSame(after, game.getSnapshot());
+      game.unmakeMove();
+      game.unmakeMove();
+      assertEquals(1, game.getSnapshot().getMoveCount());
+      assertEquals(PositionSnapshot.RED, game.getSnapshot().getOwnerAt(2, 2));
+      assertEquals(-1, game.getSnapshot().getCardIdAt(2, 3));
+    } catch (Exception e) {
+      fail("Failed snapshot test: " + e.getMessage());
+    }
+  }
+
+  @Test
+  public void testListenersSeeEachChangeOfATurn() {
+    try {
+      Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+      Player red = new Player("Red");
+      Player blue = new Player("Blue");
+      Card weak = new Card("Weak", 1, 1, 1, 1);
+      Card strong = new Card("Strong", 9, 9, 9, 9);
+      red.addCardToHand(weak);
+      blue.addCardToHand(weak);
+      blue.addCardToHand(strong);
+      Game game = new Game(grid, red, blue);
+      StringBuilder events = new StringBuilder();
+      game.addGameListener(new GameListener() {
+        @Override
+        public void cardPlaced(int cell, Card card, String owner) {
+          events.append("placed ").append(cell).append(' ').append(owner).append(';');
+        }
+
+        @Override
+        public void cellsFlipped(int[] cells, String newOwner) {
+          events.append("flipped ").append(java.util.Arrays.toString(cells)).append(' ')
+              .append(newOwner).append(';');
+        }
+
+        @Override
+        public void cardRemoved(int cell) {
+          events.append("removed ").append(cell).append(';');
+        }
+
+        @Override
+        public void handCardRemoved(String player, int handIndex) {
+          events.append("hand- ").append(player).append(handIndex).append(';');
+        }
+
+        @Override
+        public void handCardRestored(String player, int handIndex, Card card) {
+          events.append("hand+ ").append(player).append(handIndex).append(';');
+        }
+
+        @Override
+        public void turnChanged(String player) {
+          events.append("turn ").append(player).append(';');
+        }
+
+        @Override
+        public void positionReset(PositionSnapshot snapshot) {
+          events.append("reset ").append(snapshot.getMoveCount()).append(';');
+        }
+      });
+
+      game.playTurn(2, 2, weak);
+      game.playTurn(2, 3, strong);
+      assertEquals("hand- Red0;placed 12 Red;turn Blue;"
+          + "hand- Blue1;placed 13 Blue;flipped [12] Blue;turn Red;", events.toString());
+
+      events.setLength(0);
+      game.unmakeMove();
+      assertEquals("flipped [12] Red;removed 13;hand+ Blue1;turn Blue;", events.toString());
+
+      events.setLength(0);
+      game.makeMove(2, 3, 0);
+      game.unmakeMove();
+      assertEquals("", events.toString());
+
+      // a reset carries the position it reset to, and a card from outside the hand leaves the
+      // hand alone
+      game.setupGame("src/files/grid_holes_reach.txt", "src/files/cards.txt");
+      PositionSnapshot reset = game.getSnapshot();
+      game.playTurn(2, 2, new Card("Stray", 2, 2, 2, 2));
+      assertEquals("reset 0;placed 12 Red;turn Blue;", events.toString());
+      assertEquals(0, reset.getMoveCount());
+    } catch (Exception e) {
+      fail("Failed listener test: " + e.getMessage());
+    }
+  }
 }
@@ -2,6 +2,11 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class StrategyTest {
     private Game game;
@@ -89,4 +94,290 @@ public class StrategyTest {
 
 
     }
+
+    @Test
+    void testAlphaBetaTakesBestCapture() throws FileNotFoundException {
+        Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+
+        redPlayer.addCardToHand(new Card("RedWeak", 1, 1, 1, 1));
+        redPlayer.addCardToHand(new Card("RedStrong", 9, 9, 9, 9));
+        redPlayer.addCardToHand(new Card("RedFiller", 2, 2, 2, 2));
+        bluePlayer.addCardToHand(new Card("BlueLeft", 5, 5, 5, 5));
+        bluePlayer.addCardToHand(new Card("BlueRight", 5, 5, 5, 5));
+
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        game.playTurn(4, 4, redPlayer.getHand().get(2));
+        game.playTurn(2, 1, bluePlayer.getHand().get(0));
+        game.playTurn(0, 4, redPlayer.getHand().get(0));
+        game.playTurn(2, 3, bluePlayer.getHand().get(0));
+
+        AlphaBetaStrategy strategy = new AlphaBetaStrategy(1);
+        long key = game.getPositionKey();
+        int move = strategy.findBestMove("Red", game);
+        Assertions.assertEquals(key, game.getPositionKey());
+        Assertions.assertEquals(2 * 5 + 2, Game.moveCell(move));
+        Assertions.assertEquals("RedStrong",
+                redPlayer.getCardInSlot(Game.moveSlot(move)).getName());
+        Assertions.assertTrue(strategy.getNodeCount() > 0);
+
+        strategy.playMove("Red", game);
+        Assertions.assertEquals(redPlayer, grid.getCell(2, 1).getOwner());
+        Assertions.assertEquals(redPlayer, grid.getCell(2, 3).getOwner());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> strategy.findBestMove("Red", game));
+    }
+
+    @Test
+    void testFlipMostChecksTurnAndLegalMoves() throws FileNotFoundException {
+        Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        redPlayer.addCardToHand(new Card("RedLone", 3, 3, 3, 3));
+        bluePlayer.addCardToHand(new Card("BlueLone", 4, 4, 4, 4));
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        ThreeTriosStrategyImpl strategy = new ThreeTriosStrategyImpl();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> strategy.flipMost("Blue", game));
+        strategy.flipMost("Red", game);
+        strategy.flipMost("Blue", game);
+        // red has no cards left, so there is no move to make
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> strategy.flipMost("Red", game));
+    }
+
+    @Test
+    void testParallelSearchMatchesSequential() throws FileNotFoundException {
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        for (int i = 0; i < 18; i++) {
+            (i % 2 == 0 ? redPlayer : bluePlayer).addCardToHand(deck.get(i));
+        }
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        game.playTurn(2, 2, redPlayer.getHand().get(0));
+        game.playTurn(2, 1, bluePlayer.getHand().get(0));
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            AlphaBetaStrategy sequential = new AlphaBetaStrategy(3, 1 << 16);
+            AlphaBetaStrategy parallel = new AlphaBetaStrategy(3, 1 << 16, pool);
+            long key = game.getPositionKey();
+
+            int move = sequential.findBestMove("Red", game);
+            Assertions.assertEquals(move, parallel.findBestMove("Red", game));
+            Assertions.assertEquals(sequential.getBestScore(), parallel.getBestScore());
+            Assertions.assertEquals(key, game.getPositionKey());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMctsPlaysLegalMoveAndRestoresGame() throws FileNotFoundException {
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        for (int i = 0; i < 26; i++) {
+            (i % 2 == 0 ? redPlayer : bluePlayer).addCardToHand(deck.get(i));
+        }
+        Game game = new Game(grid, redPlayer, bluePlayer);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MctsStrategy strategy = new MctsStrategy(500, MctsStrategy.Playout.GREEDY, pool, 42);
+            long key = game.getPositionKey();
+            int move = strategy.findBestMove("Red", game);
+
+            Assertions.assertEquals(key, game.getPositionKey());
+            Assertions.assertEquals(25, grid.getEmptyCardCellCount());
+            Assertions.assertTrue(Game.moveSlot(move) < redPlayer.getHandSize());
+            Assertions.assertTrue(strategy.getPlayoutCount() >= 500);
+            Assertions.assertTrue(strategy.getPlayoutsPerSecond() > 0);
+
+            strategy.playMove("Red", game);
+            Assertions.assertEquals(24, grid.getEmptyCardCellCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testTournamentIsReproducible() throws IOException {
+        List<TournamentRunner.Entrant> entrants = List.of(
+                TournamentRunner.parseEntrant("alphabeta:1"),
+                TournamentRunner.parseEntrant("alphabeta:2"),
+                TournamentRunner.parseEntrant("mcts:16"));
+        TournamentRunner runner = new TournamentRunner("src/files/grid_no_holes.txt",
+                "src/files/cards.txt", entrants);
+
+        StringBuilder first = new StringBuilder();
+        runner.run(4, 7, 2, first);
+        int games = 0;
+        for (TournamentRunner.Entrant entrant : entrants) {
+            games += entrant.getWins() + entrant.getLosses() + entrant.getDraws();
+        }
+        Assertions.assertEquals(24, games);
+        Assertions.assertEquals(0, entrants.get(0).getAverageMargin()
+                + entrants.get(1).getAverageMargin() + entrants.get(2).getAverageMargin(), 1e-9);
+
+        StringBuilder second = new StringBuilder();
+        runner.run(4, 7, 2, second);
+        Assertions.assertEquals(first.toString().lines().limit(4).collect(Collectors.toList()),
+                second.toString().lines().limit(4).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testInstrumentedStrategyRecordsCalls() throws IOException {
+        Game game = new Game(FileReader.loadGrid("src/files/grid_no_holes.txt"),
+                new Player("Red"), new Player("Blue"));
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        game.getCurrentPlayer().setHand(deck.subList(0, 13));
+        Metrics metrics = new Metrics(true);
+        ThreeTriosStrategy strategy = new InstrumentedStrategy("ab",
+                new AlphaBetaStrategy(2), metrics);
+
+        strategy.playMove("Red", game);
+        Assertions.assertEquals(1, metrics.counter("strategy.ab.calls").get());
+        Assertions.assertEquals(strategy.getNodeCount(),
+                metrics.counter("strategy.ab.nodes").get());
+        Assertions.assertTrue(strategy.getNodeCount() > 0);
+        Assertions.assertEquals(1, metrics.histogram("strategy.ab.nanos").getCount());
+        Assertions.assertNotEquals(-1, game.getLastMove());
+
+        StringBuilder dump = new StringBuilder();
+        metrics.dump(dump);
+        Assertions.assertTrue(dump.toString().contains("strategy.ab.calls"));
+
+        Metrics.Histogram histogram = new Metrics(true).histogram("h");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        Assertions.assertEquals(63, histogram.getPercentile(0.5));
+        Assertions.assertEquals(100, histogram.getPercentile(1));
+        Assertions.assertEquals(50.5, histogram.getMean(), 1e-9);
+
+        Metrics.Counter disabled = new Metrics(false).counter("c");
+        disabled.increment();
+        Assertions.assertEquals(0, disabled.get());
+    }
+
+    @Test
+    void testDeadlineStrategyKeepsLastFinishedSearch() throws FileNotFoundException {
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        for (int i = 0; i < 18; i++) {
+            (i % 2 == 0 ? redPlayer : bluePlayer).addCardToHand(deck.get(i));
+        }
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        long key = game.getPositionKey();
+
+        DeadlineStrategy hurried = new DeadlineStrategy(Duration.ofNanos(1), 1 << 16);
+        int move = hurried.findBestMove("Red", game);
+        // depth 1 visits fewer nodes than a clock check interval, so only it finishes
+        Assertions.assertEquals(1, hurried.getDepthReached());
+        Assertions.assertEquals(key, game.getPositionKey());
+        Assertions.assertTrue(grid.getCell(Game.moveCell(move) / 5, Game.moveCell(move) % 5)
+                .isEmpty());
+
+        DeadlineStrategy patient = new DeadlineStrategy(Duration.ofSeconds(30), 1 << 16);
+        AlphaBetaStrategy fixed = new AlphaBetaStrategy(2, 1 << 16);
+        game.playTurn(2, 2, redPlayer.getHand().get(0));
+        for (int turn = 0; turn < 12; turn++) {
+            String color = game.getCurrentPlayer().getColor();
+            fixed.playMove(color, game);
+        }
+        key = game.getPositionKey();
+        String color = game.getCurrentPlayer().getColor();
+        move = patient.findBestMove(color, game);
+        Assertions.assertEquals(key, game.getPositionKey());
+        // four cells are left, so the search runs to the end of the game well within the budget
+        Assertions.assertEquals(4, patient.getDepthReached());
+        Assertions.assertTrue(patient.getElapsedNanos() > 0);
+        Assertions.assertTrue(patient.getNodeCount() > 0);
+
+        patient.playMove(color, game);
+        Assertions.assertEquals(move, game.getLastMove());
+    }
+
+    @Test
+    void testEndgameSolverFindsExactMargin() throws FileNotFoundException {
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        Grid grid = FileReader.loadGrid("src/files/grid_no_holes.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        for (int i = 0; i < 26; i++) {
+            (i % 2 == 0 ? redPlayer : bluePlayer).addCardToHand(deck.get(i));
+        }
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        AlphaBetaStrategy opening = new AlphaBetaStrategy(1, 1 << 16);
+        for (int turn = 0; turn < 19; turn++) {
+            opening.playMove(game.getCurrentPlayer().getColor(), game);
+        }
+
+        EndgameSolver solver = new EndgameSolver(6, opening, 1 << 16);
+        Assertions.assertTrue(solver.canSolve(game));
+        long key = game.getPositionKey();
+        int margin = solver.solve(game);
+        Assertions.assertEquals(key, game.getPositionKey());
+        Assertions.assertTrue(solver.getNodeCount() > 0);
+        Assertions.assertTrue(solver.getPositionsPerSecond() > 0);
+
+        // a full-width search to the end of the game agrees, from blue's point of view
+        AlphaBetaStrategy full = new AlphaBetaStrategy(6, 1 << 16);
+        full.findBestMove("Blue", game);
+        Assertions.assertEquals(-margin, full.getBestScore());
+
+        while (!game.isGameOver()) {
+            solver.playMove(game.getCurrentPlayer().getColor(), game);
+        }
+        Assertions.assertEquals(margin, game.getMargin());
+    }
+
+    @Test
+    void testFlipMatrixFollowsMoves() throws FileNotFoundException {
+        List<Card> deck = FileReader.loadCards("src/files/cards.txt");
+        Grid grid = FileReader.loadGrid("src/files/grid_holes_reach.txt");
+        Player redPlayer = new Player("Red");
+        Player bluePlayer = new Player("Blue");
+        for (int i = 0; i < 16; i++) {
+            (i % 2 == 0 ? redPlayer : bluePlayer).addCardToHand(deck.get(i));
+        }
+        Game game = new Game(grid, redPlayer, bluePlayer);
+        FlipMatrix matrix = game.getFlipMatrix();
+
+        int[][] moves = {{0, 0, 3}, {0, 1, 0}, {1, 0, 2}, {2, 0, 1}, {2, 1, 4}, {1, 2, 0}};
+        for (int[] move : moves) {
+            game.makeMove(move[0], move[1], move[2]);
+            assertMatrixMatches(game, matrix);
+        }
+        for (int i = 0; i < 3; i++) {
+            game.unmakeMove();
+            assertMatrixMatches(game, matrix);
+        }
+    }
+
+    private static void assertMatrixMatches(Game game, FlipMatrix matrix) {
+        Player player = game.getCurrentPlayer();
+        Hand hand = player.getSlots();
+        int[] dims = game.getGridDimensions();
+        for (int row = 0; row < dims[0]; row++) {
+            for (int col = 0; col < dims[1]; col++) {
+                Cell cell = game.getCellContents(row, col);
+                for (int slot = hand.nextSlot(0); slot >= 0; slot = hand.nextSlot(slot + 1)) {
+                    int expected = cell.isCardCell() && cell.isEmpty()
+                            ? game.getFlipCount(hand.indexOf(slot), row, col)
+                            : FlipMatrix.NOT_PLAYABLE;
+                    Assertions.assertEquals(expected,
+                            matrix.getFlipCount(player, slot, row * dims[1] + col));
+                }
+            }
+        }
+    }
 }